@@ -0,0 +1,60 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 감사 필드 설정 방식별 회원 배치 적재 처리량.
+ * standard 는 기존 AuditingHandler(쓰기마다 UUID auditor), fast 는 트랜잭션당 auditor + 10ms 해상도 시계.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AuditingBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"standard", "fast"})
+    String mode;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start("--app.auditing.mode=" + mode, "--app.auditing.clock-resolution=10ms");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("truncate table member");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 1 op = 회원 ROWS 건 적재
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int insert() {
+        List<Member> members = new ArrayList<>(ROWS);
+        for ( int i = 0; i < ROWS; ++i ) {
+            members.add(new Member("member" + i, i % 100));
+        }
+        return memberRepository.saveAllBatched(members, BATCH_SIZE);
+    }
+
+}
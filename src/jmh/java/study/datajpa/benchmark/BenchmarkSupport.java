@@ -0,0 +1,69 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.SpringDataJpaApplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+public final class BenchmarkSupport {
+
+    // 애플리케이션이 시퀀스로 발급하는 id 와 겹치지 않도록 충분히 큰 값부터 사용
+    public static final long FIRST_MEMBER_ID = 10_000_000L;
+    public static final long FIRST_TEAM_ID = 10_000_000L;
+
+    private static final int INSERT_CHUNK = 1_000;
+
+    private BenchmarkSupport() {
+    }
+
+    public static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(SpringDataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(args);
+    }
+
+    // 임의 포트로 Tomcat 까지 띄운다. 포트는 local.server.port
+    public static ConfigurableApplicationContext startServer(String... args) {
+        String[] withPort = Arrays.copyOf(args, args.length + 1);
+        withPort[args.length] = "--server.port=0";
+        return new SpringApplicationBuilder(SpringDataJpaApplication.class)
+                .logStartupInfo(false)
+                .run(withPort);
+    }
+
+    public static void insertMembers(JdbcTemplate jdbcTemplate, int count) {
+        insertMembers(jdbcTemplate, count, 0, i -> "member" + i);
+    }
+
+    // teams 가 0 이면 팀 없이, 아니면 FIRST_TEAM_ID 부터의 팀에 순서대로 배정
+    public static void insertMembers(JdbcTemplate jdbcTemplate, int count, int teams, IntFunction<String> username) {
+        List<Object[]> rows = new ArrayList<>(INSERT_CHUNK);
+        for ( int i = 0; i < count; ++i ) {
+            Long teamId = teams == 0 ? null : FIRST_TEAM_ID + i % teams;
+            rows.add(new Object[]{FIRST_MEMBER_ID + i, i % 100, username.apply(i), teamId});
+            if ( rows.size() == INSERT_CHUNK ) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, age, username, team_id) values (?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        if ( !rows.isEmpty() ) {
+            jdbcTemplate.batchUpdate("insert into member (member_id, age, username, team_id) values (?, ?, ?, ?)", rows);
+        }
+    }
+
+    public static void insertTeams(JdbcTemplate jdbcTemplate, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for ( int i = 0; i < count; ++i ) {
+            rows.add(new Object[]{FIRST_TEAM_ID + i, "team" + i});
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", rows);
+    }
+
+}
@@ -0,0 +1,98 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamJpaRepository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 팀 10k 개와 회원 rows 개를 H2 에 적재하는 시간.
+ * saveLoop 는 MemberController.init 처럼 save() 를 한 건씩 호출하는 기존 방식이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class BulkInsertBenchmark {
+
+    private static final int TEAMS = 10_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"100000", "1000000"})
+    int rows;
+
+    @Param({"batched", "saveLoop"})
+    String mode;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private MemberRepository memberRepository;
+    private TeamJpaRepository teamJpaRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        teamJpaRepository = context.getBean(TeamJpaRepository.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("set referential_integrity false");
+        jdbcTemplate.execute("truncate table member");
+        jdbcTemplate.execute("truncate table team");
+        jdbcTemplate.execute("set referential_integrity true");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int load() {
+        List<Team> teams = new ArrayList<>(TEAMS);
+        for ( int i = 0; i < TEAMS; ++i ) {
+            teams.add(new Team("team" + i));
+        }
+        teamJpaRepository.saveAllBatched(teams, BATCH_SIZE);
+
+        Iterable<Member> members = () -> new Iterator<>() {
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < rows;
+            }
+
+            @Override
+            public Member next() {
+                Member member = new Member("member" + i, i % 100);
+                member.setTeam(teams.get(i % TEAMS));
+                ++i;
+                return member;
+            }
+        };
+
+        if ( mode.equals("batched") ) {
+            return memberRepository.saveAllBatched(members, BATCH_SIZE);
+        }
+        int count = 0;
+        for (Member member : members) {
+            memberRepository.save(member);
+            ++count;
+        }
+        return count;
+    }
+
+}
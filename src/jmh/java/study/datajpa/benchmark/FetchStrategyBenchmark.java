@@ -0,0 +1,95 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 회원과 팀을 함께 읽는 방법별 비용 비교. 모든 경우에 팀 이름까지 읽어서
+ * findMemberCustom 처럼 팀을 지연 로딩하는 경로도 같은 결과를 만들도록 맞춘다.
+ * 할당량은 gc 프로파일러(build.gradle 의 jmh.profilers)로 함께 측정한다.
+ * 2차 캐시와 배치 조회(default_batch_fetch_size, Team 과 Team.members 의 @BatchSize)는 끈다.
+ * 켜 두면 지연 로딩 경로가 캐시된 팀과 IN 배치 조회로 측정되어 fetch 전략끼리의 비교가 되지 않는다.
+ * @BatchSize 는 설정으로 덮어쓸 수 없어 {@link NoBatchFetchIntegratorProvider} 로 매핑에서 지운다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class FetchStrategyBenchmark {
+
+    private static final String USERNAME = "fetch";
+    private static final int MEMBERS_PER_TEAM = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start(
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--spring.jpa.properties.hibernate.default_batch_fetch_size=1",
+                "--spring.jpa.properties.hibernate.integrator_provider=" + NoBatchFetchIntegratorProvider.class.getName());
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        int teams = Math.max(1, rows / MEMBERS_PER_TEAM);
+        BenchmarkSupport.insertTeams(jdbcTemplate, teams);
+        // Member.all 그래프는 username 조건으로만 쓰이므로 모두 같은 이름으로 넣는다
+        BenchmarkSupport.insertMembers(jdbcTemplate, rows, teams, i -> USERNAME);
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void fetchJoin(Blackhole blackhole) {
+        load(memberRepository::findMemberFetchJoin, blackhole);
+    }
+
+    @Benchmark
+    public void entityGraphQuery(Blackhole blackhole) {
+        load(memberRepository::findMemberEntityGraph, blackhole);
+    }
+
+    @Benchmark
+    public void entityGraphFindAll(Blackhole blackhole) {
+        load(memberRepository::findAll, blackhole);
+    }
+
+    @Benchmark
+    public void namedEntityGraph(Blackhole blackhole) {
+        load(() -> memberRepository.findEntityGraphByUsername(USERNAME), blackhole);
+    }
+
+    @Benchmark
+    public void customJpqlLazyTeam(Blackhole blackhole) {
+        load(memberRepository::findMemberCustom, blackhole);
+    }
+
+    private void load(Supplier<List<Member>> query, Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> {
+            for ( Member member : query.get() ) {
+                blackhole.consume(member.getTeam() == null ? null : member.getTeam().getName());
+            }
+        });
+    }
+
+}
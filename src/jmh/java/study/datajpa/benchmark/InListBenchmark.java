@@ -0,0 +1,73 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * username IN 리스트 조회 비교.
+ * single: findByNames 한 문장 (패딩으로 2의 거듭제곱 개 파라미터)
+ * chunkedSequential: findByNamesChunked 를 트랜잭션 안에서 호출 (청크를 순서대로)
+ * chunkedParallel: findByNamesChunked 를 트랜잭션 밖에서 호출 (청크 묶음을 repositoryExecutor 에서 동시에)
+ * names=100000 에서 single 은 131072 개로 채워진 파라미터가 H2 한도(100,000)를 넘어 실패한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InListBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Param({"10", "1000", "10000", "100000"})
+    int names;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnly;
+    private List<String> usernames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        BenchmarkSupport.insertMembers(context.getBean(JdbcTemplate.class), ROWS);
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        // 절반은 없는 이름
+        usernames = new ArrayList<>(names);
+        for ( int i = 0; i < names; ++i ) {
+            usernames.add(i % 2 == 0 ? "member" + (i * 7 % ROWS) : "missing" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void single(Blackhole blackhole) {
+        blackhole.consume(memberRepository.findByNames(usernames));
+    }
+
+    @Benchmark
+    public void chunkedSequential(Blackhole blackhole) {
+        blackhole.consume(readOnly.execute(status -> memberRepository.findByNamesChunked(usernames)));
+    }
+
+    @Benchmark
+    public void chunkedParallel(Blackhole blackhole) {
+        blackhole.consume(memberRepository.findByNamesChunked(usernames));
+    }
+
+}
@@ -0,0 +1,85 @@
+package study.datajpa.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Item;
+import study.datajpa.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 호출마다 새 id 10k 개를 적재한다. upsertExisting 은 이미 적재된 id 를 다시 넣는 경우.
+ * mergeLoop 는 Persistable 을 구현하기 전의 save() 처럼 건마다 트랜잭션에서 em.merge 를 불러 insert 전에 select 하는 기준선이고,
+ * saveLoop 는 Persistable 로 select 없이 persist 하는 save() 경로다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ItemUpsertBenchmark {
+
+    private static final int ITEMS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private ItemRepository itemRepository;
+    private EntityManager em;
+    private TransactionTemplate tx;
+    private List<Item> existing;
+    private long round;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        itemRepository = context.getBean(ItemRepository.class);
+        em = context.getBean(EntityManager.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        existing = items("existing");
+        itemRepository.upsertAll(existing);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int mergeLoop() {
+        List<Item> items = items("merge" + round++);
+        for ( Item item : items ) {
+            tx.executeWithoutResult(status -> em.merge(item));
+        }
+        return items.size();
+    }
+
+    @Benchmark
+    public int saveLoop() {
+        List<Item> items = items("save" + round++);
+        for (Item item : items) {
+            itemRepository.save(item);
+        }
+        return items.size();
+    }
+
+    @Benchmark
+    public int upsert() {
+        return itemRepository.upsertAll(items("upsert" + round++));
+    }
+
+    @Benchmark
+    public int upsertExisting() {
+        return itemRepository.upsertAll(existing);
+    }
+
+    private static List<Item> items(String prefix) {
+        List<Item> items = new ArrayList<>(ITEMS);
+        for ( int i = 0; i < ITEMS; ++i ) {
+            items.add(new Item(prefix + "-" + i));
+        }
+        return items;
+    }
+
+}
@@ -0,0 +1,61 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 쿼리(id > ? order by id)를 OFFSET 으로 N 페이지까지 건너뛰는 경우와
+ * 직전 페이지의 마지막 id 를 커서로 넘기는 경우를 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeysetPaginationBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1", "100", "1000", "5000"})
+    int page;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private Long cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        BenchmarkSupport.insertMembers(jdbcTemplate, ROWS);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        cursor = page == 1
+                ? 0L
+                : jdbcTemplate.queryForObject(
+                        "select member_id from member order by member_id offset ? rows fetch next 1 row only",
+                        Long.class, (page - 1) * PAGE_SIZE - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<Member> offset() {
+        return memberRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(page - 1, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Slice<Member> keyset() {
+        return memberRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, PAGE_SIZE));
+    }
+
+}
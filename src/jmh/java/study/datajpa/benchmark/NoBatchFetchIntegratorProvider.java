@@ -0,0 +1,42 @@
+package study.datajpa.benchmark;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.mapping.Collection;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.util.List;
+
+/**
+ * 엔티티와 컬렉션에 붙은 @BatchSize 를 지운다. default_batch_fetch_size 는 매핑의 @BatchSize 를 덮어쓰지 못하므로
+ * 지연 로딩을 행마다 select 하는 경로로 재려면 매핑 자체를 바꿔야 한다.
+ * hibernate.integrator_provider 로 등록하며, 통합기는 엔티티 퍼시스터가 만들어지기 전에 실행된다.
+ */
+public class NoBatchFetchIntegratorProvider implements IntegratorProvider {
+
+    @Override
+    public List<Integrator> getIntegrators() {
+        return List.of(new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                                  SessionFactoryImplementor sessionFactory) {
+                for ( PersistentClass entity : metadata.getEntityBindings() ) {
+                    entity.setBatchSize(1);
+                }
+                for ( Collection collection : metadata.getCollectionBindings() ) {
+                    collection.setBatchSize(1);
+                }
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                     SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        });
+    }
+
+}
@@ -0,0 +1,103 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.outbox.InMemoryOutboxSink;
+import study.datajpa.outbox.OutboxEventWriter;
+import study.datajpa.outbox.OutboxRelay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * outbox_event 에 쌓인 EVENTS 개(회원 1,000 명의 변경)를 OutboxRelay 로 모두 전달하는 시간.
+ * 초당 처리량은 EVENTS / 측정 시간이다.
+ * relays 개 스레드가 동시에 drain 하면 SKIP LOCKED 로 파티션(16개)을 나눠 갖는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class OutboxRelayBenchmark {
+
+    private static final int EVENTS = 50_000;
+    private static final int AGGREGATES = 1_000;
+    private static final int PARTITIONS = 16;
+    private static final int INSERT_CHUNK = 1_000;
+
+    @Param({"100", "1000"})
+    int batchSize;
+
+    @Param({"memory", "file"})
+    String sink;
+
+    @Param({"1", "4"})
+    int relays;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private OutboxRelay relay;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("outbox", ".ndjson");
+        context = BenchmarkSupport.start("--app.outbox.sink=" + sink, "--app.outbox.file=" + file,
+                "--app.outbox.relay.batch-size=" + batchSize, "--app.outbox.partitions=" + PARTITIONS);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        relay = context.getBean(OutboxRelay.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillOutbox() throws IOException {
+        relay.drain();
+        if ( relay.getSink() instanceof InMemoryOutboxSink memory ) {
+            memory.clear();
+        }
+        Files.write(file, new byte[0]);
+
+        List<Object[]> rows = new ArrayList<>(INSERT_CHUNK);
+        for ( int i = 0; i < EVENTS; ++i ) {
+            long memberId = BenchmarkSupport.FIRST_MEMBER_ID + i % AGGREGATES;
+            String key = "Member:" + memberId;
+            rows.add(new Object[]{memberId, key, OutboxEventWriter.partition(key, PARTITIONS),
+                    "{\"id\":" + memberId + ",\"username\":\"member" + i + "\",\"age\":" + i % 100 + ",\"teamId\":null}"});
+            if ( rows.size() == INSERT_CHUNK || i == EVENTS - 1 ) {
+                jdbcTemplate.batchUpdate("insert into outbox_event" +
+                        " (id, aggregate_type, aggregate_id, aggregate_key, partition_no, event_type, payload, created_at)" +
+                        " values (next value for outbox_event_seq, 'Member', ?, ?, ?, 'UPDATED', ?, current_timestamp)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long drain() {
+        if ( relays == 1 ) {
+            return relay.drain();
+        }
+        List<CompletableFuture<Long>> futures = new ArrayList<>(relays);
+        for ( int i = 0; i < relays; ++i ) {
+            futures.add(CompletableFuture.supplyAsync(relay::drain));
+        }
+        long total = 0;
+        for ( CompletableFuture<Long> future : futures ) {
+            total += future.join();
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,115 @@
+package study.datajpa.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.repository.GeneratedProjection;
+import study.datajpa.repository.MemberProjection;
+import study.datajpa.repository.MemberRepositoryImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 네이티브 SQL(MemberRepositoryImpl.MEMBER_PROJECTION_SELECT) 결과를 MemberProjection 으로 만드는 비용.
+ * proxy 는 Spring Data 가 네이티브 인터페이스 프로젝션에 쓰던 경로(Tuple -> Map -> ProjectionFactory 의 JDK 프록시),
+ * generated 는 findByNativeProjection 이 쓰는 생성된 구현 클래스, jdbcGenerated 는 JdbcTemplate 행을 바로 채운다.
+ * 세 경우 모두 같은 SQL 과 행 수를 읽고 모든 getter 를 한 번씩 호출하므로 차이는 행을 객체로 만드는 비용뿐이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"100", "10000"})
+    int rows;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory emf;
+    private JdbcTemplate jdbcTemplate;
+    private ProjectionFactory projectionFactory;
+    private GeneratedProjection.Binder<MemberProjection> binder;
+    private GeneratedProjection<MemberProjection> projection;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.start();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        int teams = Math.max(1, rows / 10);
+        BenchmarkSupport.insertTeams(jdbcTemplate, teams);
+        BenchmarkSupport.insertMembers(jdbcTemplate, rows, teams, i -> "member" + i);
+        emf = context.getBean(EntityManagerFactory.class);
+        projectionFactory = new SpelAwareProxyProjectionFactory();
+        projection = GeneratedProjection.of(MemberProjection.class);
+        binder = projection.binder(List.of("id", "username", "teamName"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void proxy(Blackhole blackhole) {
+        List<MemberProjection> result = new ArrayList<>(rows);
+        for ( Tuple tuple : this.<Tuple>query(Tuple.class) ) {
+            // Spring Data 의 TupleBackedMap 처럼 별칭을 대소문자 구분 없이 찾는 Map 을 프록시 대상으로 쓴다
+            Map<String, Object> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for ( TupleElement<?> element : tuple.getElements() ) {
+                values.put(element.getAlias(), tuple.get(element));
+            }
+            result.add(projectionFactory.createProjection(MemberProjection.class, values));
+        }
+        consume(result, blackhole);
+    }
+
+    @Benchmark
+    public void generated(Blackhole blackhole) {
+        List<Object[]> tuples = query(null);
+        List<MemberProjection> result = new ArrayList<>(tuples.size());
+        for ( Object[] row : tuples ) {
+            result.add(binder.bind(row));
+        }
+        consume(result, blackhole);
+    }
+
+    @Benchmark
+    public void jdbcGenerated(Blackhole blackhole) {
+        consume(jdbcTemplate.query(MemberRepositoryImpl.MEMBER_PROJECTION_SELECT + " fetch first " + rows + " rows only",
+                projection.rowMapper()), blackhole);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> List<R> query(Class<R> resultType) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            // findByNativeProjection 과 같이 결과 타입 없이 만들면 행은 Object[] 다
+            return (resultType == null
+                    ? em.createNativeQuery(MemberRepositoryImpl.MEMBER_PROJECTION_SELECT)
+                    : em.createNativeQuery(MemberRepositoryImpl.MEMBER_PROJECTION_SELECT, resultType))
+                    .setMaxResults(rows)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void consume(List<MemberProjection> projections, Blackhole blackhole) {
+        for ( MemberProjection projection : projections ) {
+            blackhole.consume(projection.getId());
+            blackhole.consume(projection.getUsername());
+            blackhole.consume(projection.getTeamName());
+        }
+    }
+
+}
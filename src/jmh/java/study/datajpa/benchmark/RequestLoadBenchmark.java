@@ -0,0 +1,57 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 플랫폼 스레드 Tomcat 풀과 가상 스레드 모드의 부하 테스트.
+ * 클라이언트 스레드 200개가 쉬지 않고 요청을 보내며, SampleTime 결과의 p0.99 와 요청 수로 처리량을 비교한다.
+ * virtual 모드는 Java 21 (또는 19/20 에서 jvmArgsAppend 에 --enable-preview) 에서 실행한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(200)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class RequestLoadBenchmark {
+
+    @Param({"platform", "virtual"})
+    String mode;
+
+    @Param({"/members", "/members/1"})
+    String path;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startServer("--app.virtual-threads.enabled=" + mode.equals("virtual"));
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int request() throws Exception {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if ( response.statusCode() != 200 ) {
+            throw new IllegalStateException(path + " returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+}
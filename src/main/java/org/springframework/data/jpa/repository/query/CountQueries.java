@@ -0,0 +1,17 @@
+package org.springframework.data.jpa.repository.query;
+
+/**
+ * 리포지토리가 @Query 의 Page 조회에 쓰는 count 쿼리를 같은 방법(QueryEnhancerFactory)으로 만든다.
+ * spring-data-jpa 3.0 에서는 DeclaredQuery 가 패키지 밖에 공개되지 않아 이 패키지에 둔다.
+ */
+public final class CountQueries {
+
+    private CountQueries() {
+    }
+
+    // countProjection 이 null 이면 별칭으로 센다
+    public static String derive(String jpql, String countProjection) {
+        return QueryEnhancerFactory.forQuery(DeclaredQuery.of(jpql, false)).createCountQueryFor(countProjection);
+    }
+
+}
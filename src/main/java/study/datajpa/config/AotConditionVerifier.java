@@ -0,0 +1,63 @@
+package study.datajpa.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import study.datajpa.outbox.OutboxRelayJob;
+import study.datajpa.repository.TeamMemberSummaryRebuildJob;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AOT 빌드(processAot)에서는 @ConditionalOnProperty 가 빌드 시점 설정으로 평가되어
+ * 생성된 빈 정의에 고정되고, 실행 시점에 값을 바꿔도 해당 빈은 생기거나 빠지지 않는다.
+ * AOT 산출물로 실행할 때 아래 스위치의 실행 시점 값이 고정된 빈 구성과 다르면 조용히 무시하지 않고 시작을 멈춘다.
+ */
+@Component
+public class AotConditionVerifier implements SmartInitializingSingleton {
+
+    // 스위치, matchIfMissing 기본값, 켜졌을 때만 등록되는 빈
+    static final List<Switch> SWITCHES = List.of(
+            new Switch("app.query-warmup.enabled", false, QueryPlanWarmer.class),
+            new Switch("app.datasource.routing.enabled", false, ReadWriteRoutingDataSource.class),
+            new Switch("app.virtual-threads.enabled", false, VirtualThreadConfig.class),
+            new Switch("app.member-summary.rebuild.enabled", true, TeamMemberSummaryRebuildJob.class),
+            new Switch("app.outbox.relay.enabled", false, OutboxRelayJob.class));
+
+    private final Environment environment;
+    private final ListableBeanFactory beanFactory;
+
+    public AotConditionVerifier(Environment environment, ListableBeanFactory beanFactory) {
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if ( AotDetector.useGeneratedArtifacts() ) {
+            verify(environment, beanFactory);
+        }
+    }
+
+    static void verify(Environment environment, ListableBeanFactory beanFactory) {
+        List<String> mismatches = new ArrayList<>();
+        for ( Switch s : SWITCHES ) {
+            boolean enabled = environment.getProperty(s.property(), Boolean.class, s.matchIfMissing());
+            boolean registered = beanFactory.getBeanNamesForType(s.beanType(), true, false).length > 0;
+            if ( enabled != registered ) {
+                mismatches.add(s.property() + "=" + enabled + " (built with " + registered + ")");
+            }
+        }
+        if ( !mismatches.isEmpty() ) {
+            throw new IllegalStateException("Conditional configuration is fixed at AOT build time; rebuild with "
+                    + "the same settings or run without -Dspring.aot.enabled: " + String.join(", ", mismatches));
+        }
+    }
+
+    record Switch(String property, boolean matchIfMissing, Class<?> beanType) {
+    }
+
+}
@@ -0,0 +1,50 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 리포지토리의 @Async("repositoryExecutor") 조회 메서드용 실행기.
+ * 커넥션 풀 크기만큼만 스레드를 두고, 큐가 차면 호출 스레드에 TaskRejectedException 을 던진다.
+ * 큐 길이 등은 Boot 가 executor.* (name=repositoryExecutor) 지표로 노출한다.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor repositoryExecutor(
+            @Value("${app.repository-executor.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+            @Value("${app.repository-executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("repository-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    // Executor 빈이 생기면 Boot 의 applicationTaskExecutor 가 빠지므로 MVC 비동기 처리용으로 다시 등록
+    // (가상 스레드 모드에서는 VirtualThreadConfig 가 등록)
+    @Configuration
+    @ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "false", matchIfMissing = true)
+    static class ApplicationTaskExecutorConfig {
+
+        @Lazy
+        @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+        public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+            return builder.build();
+        }
+
+    }
+
+}
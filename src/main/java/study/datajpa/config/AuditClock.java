@@ -0,0 +1,11 @@
+package study.datajpa.config;
+
+import java.time.LocalDateTime;
+
+// 감사 필드에 기록할 현재 시각
+@FunctionalInterface
+public interface AuditClock {
+
+    LocalDateTime now();
+
+}
@@ -0,0 +1,29 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.AuditorAware;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Configuration
+public class AuditingConfig {
+
+    // 0 이면 매번 LocalDateTime.now()
+    @Bean
+    public AuditClock auditClock(@Value("${app.auditing.clock-resolution:0ms}") Duration resolution) {
+        if ( resolution.isZero() ) {
+            return LocalDateTime::now;
+        }
+        return new CoarseAuditClock(resolution, ZoneId.systemDefault());
+    }
+
+    @Bean
+    public TransactionScopedAuditor transactionScopedAuditor(AuditorAware<?> auditorProvider) {
+        return new TransactionScopedAuditor(auditorProvider);
+    }
+
+}
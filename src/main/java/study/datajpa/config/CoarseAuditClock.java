@@ -0,0 +1,43 @@
+package study.datajpa.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * resolution 동안 같은 LocalDateTime 을 돌려준다. 매 호출마다 시간대 규칙을 계산하는
+ * LocalDateTime.now() 대신 System.currentTimeMillis() 비교만 한다.
+ */
+public class CoarseAuditClock implements AuditClock {
+
+    private final long resolutionMillis;
+    private final ZoneId zone;
+    private volatile Tick tick;
+
+    public CoarseAuditClock(Duration resolution, ZoneId zone) {
+        this.resolutionMillis = resolution.toMillis();
+        this.zone = zone;
+        this.tick = tick(System.currentTimeMillis());
+    }
+
+    @Override
+    public LocalDateTime now() {
+        long millis = System.currentTimeMillis();
+        Tick current = tick;
+        if ( millis >= current.millis() && millis - current.millis() < resolutionMillis ) {
+            return current.value();
+        }
+        Tick next = tick(millis);
+        tick = next;
+        return next.value();
+    }
+
+    private Tick tick(long millis) {
+        return new Tick(millis, LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone));
+    }
+
+    private record Tick(long millis, LocalDateTime value) {
+    }
+
+}
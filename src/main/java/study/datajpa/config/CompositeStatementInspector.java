@@ -0,0 +1,27 @@
+package study.datajpa.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+
+public class CompositeStatementInspector implements StatementInspector {
+
+    private final List<StatementInspector> inspectors;
+
+    public CompositeStatementInspector(List<StatementInspector> inspectors) {
+        this.inspectors = List.copyOf(inspectors);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String result = sql;
+        for (StatementInspector inspector : inspectors) {
+            String inspected = inspector.inspect(result);
+            if ( inspected != null ) {
+                result = inspected;
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,44 @@
+package study.datajpa.config;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+
+/**
+ * 호출 스레드의 MDC, 요청 속성, 쓰기 직후 primary 고정 여부를 작업 스레드로 넘긴다.
+ * 트랜잭션 자체는 스레드에 묶여 있어 넘길 수 없으므로 작업은 자기 트랜잭션에서 실행된다.
+ */
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        Long lastWrite = ReadWriteRoutingDataSource.lastWrite();
+        return () -> {
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            RequestAttributes previousRequestAttributes = RequestContextHolder.getRequestAttributes();
+            Long previousLastWrite = ReadWriteRoutingDataSource.lastWrite();
+            set(mdc, requestAttributes, lastWrite);
+            try {
+                runnable.run();
+            } finally {
+                set(previousMdc, previousRequestAttributes, previousLastWrite);
+            }
+        };
+    }
+
+    private static void set(Map<String, String> mdc, RequestAttributes requestAttributes, Long lastWrite) {
+        if ( mdc == null ) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(mdc);
+        }
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        ReadWriteRoutingDataSource.lastWrite(lastWrite);
+    }
+
+}
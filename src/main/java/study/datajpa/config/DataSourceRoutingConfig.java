@@ -0,0 +1,81 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * app.datasource.routing.enabled=true 일 때만 spring.datasource 를 primary,
+ * app.datasource.replica 를 replica 로 하는 라우팅 DataSource 를 등록한다.
+ * 풀 설정은 Boot 기본 DataSource 와 같게 spring.datasource.hikari.* (primary),
+ * app.datasource.replica.hikari.* (replica) 로 바인딩한다.
+ * 실제 복제가 없는 H2 replica 는 app.datasource.replica.sync.enabled=true 로 {@link H2ReplicaSynchronizer} 가 채운다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties primaryProperties) {
+        HikariDataSource dataSource = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        // 바인딩 전에 정한 기본값이므로 pool-name 설정이 있으면 그 값이 쓰인다
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${app.datasource.replica.url}") String replicaUrl,
+            @Value("${app.datasource.replica.username:sa}") String replicaUsername,
+            @Value("${app.datasource.replica.password:}") String replicaPassword) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            HikariDataSource replicaDataSource,
+            @Value("${app.datasource.routing.lag-tolerance:0s}") Duration lagTolerance,
+            @Value("${app.datasource.routing.fallback:primary}") ReadWriteRoutingDataSource.Fallback fallback,
+            @Value("${app.datasource.routing.retry-after:5s}") Duration retryAfter) {
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, lagTolerance, fallback, retryAfter);
+    }
+
+    // 외부에서 복제되는 replica 에 켜면 replica 를 primary 로 덮어쓴다
+    @Bean
+    public H2ReplicaSynchronizer h2ReplicaSynchronizer(
+            HikariDataSource primaryDataSource,
+            HikariDataSource replicaDataSource,
+            ReadWriteRoutingDataSource readWriteRoutingDataSource,
+            @Value("${app.datasource.replica.sync.enabled:false}") boolean syncEnabled) {
+        return new H2ReplicaSynchronizer(primaryDataSource, replicaDataSource, readWriteRoutingDataSource, syncEnabled);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+}
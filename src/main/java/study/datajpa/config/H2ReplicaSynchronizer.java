@@ -0,0 +1,89 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 로컬/테스트용 replica 복제. primary H2 를 SCRIPT 로 떠서 replica H2 를 RUNSCRIPT 로 다시 만든다 (스키마와 데이터 모두).
+ * 시작할 때 한 번, 이후 app.datasource.replica.sync.fixed-delay 마다 복사하므로 replica 는 그만큼 뒤처진다.
+ * 첫 복사 전과 복사하는 동안에는 {@link ReadWriteRoutingDataSource} 가 읽기도 primary 로 보낸다.
+ * 복사 시작 전에 이미 replica 커넥션을 얻은 읽기는 복사 중인 replica 를 볼 수 있다.
+ * enabled=false (외부에서 복제되는 replica) 이면 아무것도 하지 않는다.
+ */
+@Slf4j
+public class H2ReplicaSynchronizer implements SmartInitializingSingleton {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final boolean enabled;
+
+    public H2ReplicaSynchronizer(DataSource primary, DataSource replica, ReadWriteRoutingDataSource routingDataSource,
+                                 boolean enabled) {
+        this.primary = primary;
+        this.replica = replica;
+        this.routingDataSource = routingDataSource;
+        this.enabled = enabled;
+        if ( enabled ) {
+            routingDataSource.setReplicaAvailable(false);
+        }
+    }
+
+    // Hibernate 가 primary 스키마를 만든 뒤 트래픽을 받기 전에 복사한다
+    @Override
+    public void afterSingletonsInstantiated() {
+        if ( enabled ) {
+            sync();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.sync.fixed-delay:5000}",
+            initialDelayString = "${app.datasource.replica.sync.fixed-delay:5000}")
+    public void scheduledSync() {
+        if ( !enabled ) {
+            return;
+        }
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("Replica sync failed, reads stay on primary until the next sync: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void sync() {
+        routingDataSource.setReplicaAvailable(false);
+        long start = System.nanoTime();
+        Path script = null;
+        try {
+            script = Files.createTempFile("replica-sync", ".sql");
+            try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("SCRIPT DROP TO '" + script.toAbsolutePath() + "'");
+            }
+            try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                statement.execute("RUNSCRIPT FROM '" + script.toAbsolutePath() + "'");
+            }
+            routingDataSource.setReplicaAvailable(true);
+            log.debug("Replica synced from primary ({} ms)", (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("replica sync failed", e);
+        } finally {
+            if ( script != null ) {
+                script.toFile().delete();
+            }
+        }
+    }
+
+}
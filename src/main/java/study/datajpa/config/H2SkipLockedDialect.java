@@ -0,0 +1,32 @@
+package study.datajpa.config;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
+
+/**
+ * Hibernate 6.1 의 H2Dialect 는 SKIP LOCKED 를 몰라서 lock timeout -2 를
+ * 그냥 FOR UPDATE 로 바꾼다. H2 2.2 이상에서만 사용한다.
+ */
+public class H2SkipLockedDialect extends H2Dialect {
+
+    // 접속한 H2 버전 정보로 초기화해야 2.x 문법(시퀀스 등)을 쓴다
+    public H2SkipLockedDialect(DialectResolutionInfo info) {
+        super(info);
+    }
+
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+
+    @Override
+    public String getForUpdateSkipLockedString() {
+        return getForUpdateString() + " skip locked";
+    }
+
+    @Override
+    public String getForUpdateSkipLockedString(String aliases) {
+        return getForUpdateString(aliases) + " skip locked";
+    }
+
+}
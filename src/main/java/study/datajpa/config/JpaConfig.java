@@ -0,0 +1,68 @@
+package study.datajpa.config;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.function.SingletonSupplier;
+import study.datajpa.repository.MemberBulkUpdateInterceptor;
+import study.datajpa.repository.MemberBulkUpdates;
+
+@Configuration
+public class JpaConfig {
+
+    // @Modifying @Query 회원 벌크 update 도 대상 행을 리스너에 알리도록 리포지토리 프록시에 끼운다 (RepositoryMetricsConfig 와 같은 이유로 static)
+    @Bean
+    public static BeanPostProcessor memberBulkUpdatePostProcessor(ObjectProvider<MemberBulkUpdates> bulkUpdates) {
+        SingletonSupplier<MemberBulkUpdates> bulkUpdatesSupplier = SingletonSupplier.of(bulkUpdates::getObject);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if ( bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean ) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(
+                                    new MemberBulkUpdateInterceptor(bulkUpdatesSupplier))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public TableWriteStatementInspector tableWriteStatementInspector(ObjectProvider<TableWriteListener> listeners) {
+        return new TableWriteStatementInspector(listeners);
+    }
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public SqlStatementCountFilter sqlStatementCountFilter(@Value("${app.sql-budget.warn-threshold:20}") int warnThreshold) {
+        return new SqlStatementCountFilter(warnThreshold);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.query-warmup.enabled", havingValue = "true")
+    public QueryPlanWarmer queryPlanWarmer(ListableBeanFactory beanFactory, EntityManager em,
+                                           PlatformTransactionManager transactionManager) {
+        return new QueryPlanWarmer(beanFactory, em, transactionManager);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(ObjectProvider<StatementInspector> inspectors) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new CompositeStatementInspector(inspectors.orderedStream().toList()));
+    }
+
+}
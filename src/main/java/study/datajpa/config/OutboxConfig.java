@@ -0,0 +1,31 @@
+package study.datajpa.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.outbox.FileOutboxSink;
+import study.datajpa.outbox.InMemoryOutboxSink;
+import study.datajpa.outbox.OutboxSink;
+
+import java.nio.file.Path;
+
+@Configuration
+public class OutboxConfig {
+
+    // 실제 브로커 연동은 OutboxSink 빈을 따로 등록한다
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public OutboxSink outboxSink(@Value("${app.outbox.sink:memory}") String type,
+                                 @Value("${app.outbox.file:build/outbox/events.ndjson}") Path file,
+                                 @Value("${app.outbox.memory-capacity:10000}") int memoryCapacity,
+                                 ObjectMapper objectMapper) {
+        return switch ( type ) {
+            case "memory" -> new InMemoryOutboxSink(memoryCapacity);
+            case "file" -> new FileOutboxSink(file, objectMapper);
+            default -> throw new IllegalArgumentException("app.outbox.sink must be memory or file: " + type);
+        };
+    }
+
+}
@@ -0,0 +1,189 @@
+package study.datajpa.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Parameter;
+import jakarta.persistence.Tuple;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.QueryParameter;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.query.CountQueries;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 애플리케이션이 트래픽을 받기 전에 리포지토리의 @Query 를 한 번씩 실행해 Hibernate 쿼리 플랜(SQM -> SQL 변환 결과)을
+ * 쿼리 플랜 캐시에 올린다. 문자열 파싱은 Spring Data 가 시작 시 검증하면서 이미 하지만 SQL 변환은 첫 호출 때 일어난다.
+ * Spring Data 와 같은 쿼리 문자열, 같은 결과 타입으로 만들어야 같은 캐시 항목을 쓴다.
+ * 조회는 null 파라미터로 읽기 전용 트랜잭션에서 실행 후 롤백하고, 수정/잠금/IN 리스트 쿼리는 파싱만 한다.
+ * 행 제한 유무가 다르면 Hibernate 가 SQL 변환을 다시 하므로 페이징 쿼리만 1건 제한으로 실행하고,
+ * 파라미터 없는 전체 조회는 제한 없이 fetch size 1 로 스트리밍해 첫 행만 읽고 닫는다.
+ */
+@Slf4j
+public class QueryPlanWarmer implements ApplicationRunner {
+
+    public enum Status { COMPILED, PARSED, FAILED }
+
+    public record Entry(String method, Status status, long elapsedNanos, String detail) {
+    }
+
+    public record Report(List<Entry> entries, long elapsedNanos) {
+
+        public long count(Status status) {
+            return entries.stream().filter(entry -> entry.status() == status).count();
+        }
+
+    }
+
+    private final ListableBeanFactory beanFactory;
+    private final EntityManager em;
+    private final TransactionTemplate readOnly;
+    private volatile Report lastReport;
+
+    public QueryPlanWarmer(ListableBeanFactory beanFactory, EntityManager em, PlatformTransactionManager transactionManager) {
+        this.beanFactory = beanFactory;
+        this.em = em;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    public Report warmUp() {
+        long start = System.nanoTime();
+        List<Entry> entries = new ArrayList<>();
+        Repositories repositories = new Repositories(beanFactory);
+        for ( Class<?> domainType : repositories ) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            for ( Method method : information.getQueryMethods() ) {
+                Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+                if ( query != null && StringUtils.hasText(query.value()) ) {
+                    entries.add(warmUp(information, method, query));
+                }
+            }
+        }
+        Report report = new Report(List.copyOf(entries), System.nanoTime() - start);
+        this.lastReport = report;
+
+        log.info("Warmed up {} repository queries in {} ms (compiled {}, parsed only {}, failed {})",
+                entries.size(), TimeUnit.NANOSECONDS.toMillis(report.elapsedNanos()),
+                report.count(Status.COMPILED), report.count(Status.PARSED), report.count(Status.FAILED));
+        entries.stream()
+                .sorted(Comparator.comparingLong(Entry::elapsedNanos).reversed())
+                .forEach(entry -> log.debug("  {} {} {} us {}", entry.status(), entry.method(),
+                        TimeUnit.NANOSECONDS.toMicros(entry.elapsedNanos()), entry.detail()));
+        report.entries().stream()
+                .filter(entry -> entry.status() == Status.FAILED)
+                .forEach(entry -> log.warn("Query warm-up failed for {}: {}", entry.method(), entry.detail()));
+        return report;
+    }
+
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    private Entry warmUp(RepositoryInformation information, Method method, Query query) {
+        String name = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+        long start = System.nanoTime();
+        try {
+            String detail = readOnly.execute(status -> {
+                status.setRollbackOnly();
+                return execute(information, method, query);
+            });
+            Status status = detail == null ? Status.COMPILED : Status.PARSED;
+            return new Entry(name, status, System.nanoTime() - start, detail == null ? "" : detail);
+        } catch (RuntimeException e) {
+            return new Entry(name, Status.FAILED, System.nanoTime() - start, String.valueOf(e.getMessage()));
+        }
+    }
+
+    // 파싱만 했으면 그 이유를 돌려준다
+    private String execute(RepositoryInformation information, Method method, Query query) {
+        String queryString = query.value();
+        if ( query.nativeQuery() ) {
+            execute(em.createNativeQuery(queryString), true);
+            if ( Page.class.isAssignableFrom(method.getReturnType()) && StringUtils.hasText(query.countQuery()) ) {
+                execute(em.createNativeQuery(query.countQuery()), false);
+            }
+            return null;
+        }
+
+        jakarta.persistence.Query jpaQuery = em.createQuery(queryString, resultType(information, method, queryString));
+        if ( method.isAnnotationPresent(Modifying.class) ) {
+            return "modifying query";
+        }
+        if ( method.isAnnotationPresent(Lock.class) ) {
+            return "locking query";
+        }
+        if ( method.isAnnotationPresent(Async.class) ) {
+            return "async query";
+        }
+        if ( hasMultiValuedParameter(jpaQuery) ) {
+            // Hibernate 는 IN 리스트 바인딩이 있는 쿼리의 플랜을 캐시하지 않는다
+            return "multi-valued parameter";
+        }
+        boolean paged = Arrays.stream(method.getParameterTypes()).anyMatch(Pageable.class::isAssignableFrom);
+        execute(jpaQuery, paged);
+        if ( Page.class.isAssignableFrom(method.getReturnType()) ) {
+            String countQuery = StringUtils.hasText(query.countQuery())
+                    ? query.countQuery()
+                    : CountQueries.derive(queryString, StringUtils.hasText(query.countProjection()) ? query.countProjection() : null);
+            execute(em.createQuery(countQuery, Long.class), false);
+        }
+        return null;
+    }
+
+    private static void execute(jakarta.persistence.Query query, boolean limited) {
+        for ( Parameter<?> parameter : query.getParameters() ) {
+            if ( parameter.getName() != null ) {
+                query.setParameter(parameter.getName(), null);
+            } else {
+                query.setParameter(parameter.getPosition(), null);
+            }
+        }
+        if ( limited ) {
+            query.setMaxResults(1).getResultList();
+            return;
+        }
+        try (Stream<?> rows = query.setHint(HibernateHints.HINT_FETCH_SIZE, 1).getResultStream()) {
+            rows.findFirst();
+        }
+    }
+
+    // Spring Data 처럼 인터페이스 프로젝션은 Tuple, 나머지는 결과 타입 없이 만든다
+    private static Class<?> resultType(RepositoryInformation information, Method method, String queryString) {
+        Class<?> domainClass = information.getReturnedDomainClass(method);
+        boolean constructorExpression = queryString.toLowerCase().contains("select new ");
+        return domainClass.isInterface() && !constructorExpression ? Tuple.class : null;
+    }
+
+    private static boolean hasMultiValuedParameter(jakarta.persistence.Query query) {
+        return query.getParameters().stream()
+                .anyMatch(parameter -> parameter instanceof QueryParameter<?> queryParameter
+                        && queryParameter.allowsMultiValuedBinding());
+    }
+
+}
@@ -0,0 +1,136 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 읽기 전용 트랜잭션은 replica, 나머지는 primary 로 보낸다.
+ * 트랜잭션 시작 시점에는 아직 readOnly 여부가 동기화되지 않으므로 반드시
+ * LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 실행 시점에 커넥션을 고르게 한다.
+ * replica 커넥션 실패 시 primary 로 넘기려면 커넥션을 얻는 시점까지 다뤄야 하므로
+ * AbstractRoutingDataSource 대신 두 getConnection 모두 여기서 고른 DataSource 에 위임한다.
+ * primary/replica 풀의 생명주기는 빈으로 등록한 쪽이 관리한다.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    public enum Fallback { PRIMARY, FAIL }
+
+    // 같은 스레드에서 마지막으로 쓰기 트랜잭션이 primary 커넥션을 얻은 시각
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long lagToleranceNanos;
+    private final Fallback fallback;
+    private final long retryAfterNanos;
+    private final Map<Route, LongAdder> counts = new EnumMap<>(Route.class);
+    private final LongAdder fallbacks = new LongAdder();
+    private volatile long replicaDownUntil;
+    private volatile boolean replicaAvailable = true;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, Duration lagTolerance,
+                                      Fallback fallback, Duration retryAfter) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagToleranceNanos = lagTolerance.toNanos();
+        this.fallback = fallback;
+        this.retryAfterNanos = retryAfter.toNanos();
+        for ( Route route : Route.values() ) {
+            counts.put(route, new LongAdder());
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(ConnectionSource source) throws SQLException {
+        if ( route() == Route.REPLICA ) {
+            try {
+                Connection connection = source.connect(replica);
+                counts.get(Route.REPLICA).increment();
+                return connection;
+            } catch (SQLException e) {
+                if ( fallback == Fallback.FAIL ) {
+                    throw e;
+                }
+                replicaDownUntil = System.nanoTime() + retryAfterNanos;
+                fallbacks.increment();
+                log.warn("replica connection failed, using primary for {} ms: {}", retryAfterNanos / 1_000_000, e.getMessage());
+            }
+        }
+        counts.get(Route.PRIMARY).increment();
+        return source.connect(primary);
+    }
+
+    private Route route() {
+        long now = System.nanoTime();
+        if ( !TransactionSynchronizationManager.isCurrentTransactionReadOnly() ) {
+            if ( TransactionSynchronizationManager.isActualTransactionActive() ) {
+                LAST_WRITE.set(now);
+            }
+            return Route.PRIMARY;
+        }
+        // 직전 쓰기가 replica 에 반영되기 전일 수 있으면 primary 에서 읽는다
+        Long lastWrite = LAST_WRITE.get();
+        if ( lastWrite != null && now - lastWrite < lagToleranceNanos ) {
+            return Route.PRIMARY;
+        }
+        if ( !replicaAvailable || now - replicaDownUntil < 0 ) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    // 다른 스레드로 작업을 넘길 때 primary 고정 여부를 함께 넘기기 위해 사용
+    static Long lastWrite() {
+        return LAST_WRITE.get();
+    }
+
+    static void lastWrite(Long lastWrite) {
+        if ( lastWrite == null ) {
+            LAST_WRITE.remove();
+        } else {
+            LAST_WRITE.set(lastWrite);
+        }
+    }
+
+    // false 인 동안(H2ReplicaSynchronizer 가 복사하는 중 등) 읽기도 primary 로 보낸다
+    public void setReplicaAvailable(boolean replicaAvailable) {
+        this.replicaAvailable = replicaAvailable;
+    }
+
+    public long getCount(Route route) {
+        return counts.get(route).sum();
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+
+        Connection connect(DataSource dataSource) throws SQLException;
+
+    }
+
+}
@@ -0,0 +1,39 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.function.SingletonSupplier;
+
+@Configuration
+public class RepositoryMetricsConfig {
+
+    // 리포지토리 팩토리 빈이 초기화되기 전에 프록시 후처리기를 등록해야 하므로 static
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry,
+                                                                   ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        SingletonSupplier<MeterRegistry> registrySupplier = SingletonSupplier.of(registry::getObject);
+        SingletonSupplier<EntityManagerFactory> emfSupplier = SingletonSupplier.of(entityManagerFactory::getObject);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if ( bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean ) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(new RepositoryMetricsInterceptor(
+                                    information.getRepositoryInterface(), registrySupplier, emfSupplier))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public RepositoryMetricsEndpoint repositoryMetricsEndpoint(MeterRegistry registry) {
+        return new RepositoryMetricsEndpoint(registry);
+    }
+
+}
@@ -0,0 +1,76 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static study.datajpa.config.RepositoryMetricsInterceptor.*;
+
+/**
+ * /actuator/repositories : 메서드별 호출 수, 지연 시간, 반환 건수, SQL 수를 총 소요 시간 순으로 요약
+ */
+@Endpoint(id = "repositories")
+public class RepositoryMetricsEndpoint {
+
+    private final MeterRegistry registry;
+
+    public RepositoryMetricsEndpoint(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public List<MethodSummary> methods() {
+        List<MethodSummary> summaries = new ArrayList<>();
+        for ( Timer timer : registry.find(INVOCATIONS).tag("outcome", "SUCCESS").timers() ) {
+            String repository = timer.getId().getTag("repository");
+            String method = timer.getId().getTag("method");
+            Timer errors = registry.find(INVOCATIONS).tags("repository", repository, "method", method, "outcome", "ERROR").timer();
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for ( ValueAtPercentile value : timer.takeSnapshot().percentileValues() ) {
+                percentiles.put("p" + Math.round(value.percentile() * 100), value.value(TimeUnit.MILLISECONDS));
+            }
+            summaries.add(new MethodSummary(repository, method,
+                    timer.count(),
+                    errors == null ? 0 : errors.count(),
+                    timer.totalTime(TimeUnit.MILLISECONDS),
+                    timer.mean(TimeUnit.MILLISECONDS),
+                    timer.max(TimeUnit.MILLISECONDS),
+                    percentiles,
+                    mean(ROWS, repository, method),
+                    mean(STATEMENTS, repository, method),
+                    max(PERSISTENCE_CONTEXT_SIZE, repository, method)));
+        }
+        summaries.sort(Comparator.comparingDouble(MethodSummary::totalMs).reversed());
+        return summaries;
+    }
+
+    private double mean(String name, String repository, String method) {
+        DistributionSummary summary = summary(name, repository, method);
+        return summary == null ? 0 : summary.mean();
+    }
+
+    private double max(String name, String repository, String method) {
+        DistributionSummary summary = summary(name, repository, method);
+        return summary == null ? 0 : summary.max();
+    }
+
+    private DistributionSummary summary(String name, String repository, String method) {
+        return registry.find(name).tags("repository", repository, "method", method).summary();
+    }
+
+    public record MethodSummary(String repository, String method, long count, long errors,
+                                double totalMs, double meanMs, double maxMs, Map<String, Double> percentilesMs,
+                                double meanRows, double meanStatements, double maxPersistenceContextSize) {
+    }
+
+}
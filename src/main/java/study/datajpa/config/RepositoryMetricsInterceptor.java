@@ -0,0 +1,139 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.Session;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 리포지토리 메서드(이름과 파라미터 타입)별 지연 시간, 반환 건수, 실행된 SQL 수, 호출 직후 영속성 컨텍스트 크기를 기록한다.
+ * 트랜잭션 인터셉터 안쪽에서 동작하므로 메서드가 연 트랜잭션의 영속성 컨텍스트를 본다.
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    public static final String INVOCATIONS = "repository.invocations";
+    public static final String ROWS = "repository.rows";
+    public static final String STATEMENTS = "repository.statements";
+    public static final String PERSISTENCE_CONTEXT_SIZE = "repository.persistence.context.size";
+
+    private final String repository;
+    private final Supplier<MeterRegistry> registry;
+    private final Supplier<EntityManagerFactory> entityManagerFactory;
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(Class<?> repositoryInterface, Supplier<MeterRegistry> registry,
+                                        Supplier<EntityManagerFactory> entityManagerFactory) {
+        this.repository = repositoryInterface.getSimpleName();
+        this.registry = registry;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long statementsBefore = SqlStatementCounter.current().getStatements();
+        long start = System.nanoTime();
+        boolean success = false;
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            success = true;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            MethodMeters methodMeters = meters.computeIfAbsent(invocation.getMethod(), this::register);
+            (success ? methodMeters.success() : methodMeters.error()).record(elapsed, TimeUnit.NANOSECONDS);
+            methodMeters.statements().record(SqlStatementCounter.current().getStatements() - statementsBefore);
+            if ( success ) {
+                long rows = rows(invocation.getMethod(), result);
+                if ( rows >= 0 ) {
+                    methodMeters.rows().record(rows);
+                }
+            }
+            long contextSize = persistenceContextSize();
+            if ( contextSize >= 0 ) {
+                methodMeters.persistenceContextSize().record(contextSize);
+            }
+        }
+    }
+
+    private MethodMeters register(Method method) {
+        MeterRegistry meterRegistry = registry.get();
+        Tags tags = Tags.of("repository", repository, "method", signature(method));
+        return new MethodMeters(
+                timer(meterRegistry, tags.and("outcome", "SUCCESS")),
+                timer(meterRegistry, tags.and("outcome", "ERROR")),
+                DistributionSummary.builder(ROWS).tags(tags).register(meterRegistry),
+                DistributionSummary.builder(STATEMENTS).tags(tags).register(meterRegistry),
+                DistributionSummary.builder(PERSISTENCE_CONTEXT_SIZE).tags(tags).register(meterRegistry));
+    }
+
+    // 오버로드(findAll(), findAll(Sort) 등)가 한 meter 로 합쳐지지 않도록 파라미터 타입까지 넣는다
+    static String signature(Method method) {
+        return Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", method.getName() + "(", ")"));
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, Tags tags) {
+        return Timer.builder(INVOCATIONS)
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // 건수를 알 수 없는 결과(Stream, Future 등)는 -1
+    private static long rows(Method method, Object result) {
+        if ( result == null ) {
+            return 0;
+        }
+        if ( result instanceof Collection<?> collection ) {
+            return collection.size();
+        }
+        if ( result instanceof Slice<?> slice ) {
+            return slice.getNumberOfElements();
+        }
+        if ( result instanceof Optional<?> optional ) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if ( result instanceof Number number && method.isAnnotationPresent(Modifying.class) ) {
+            return number.longValue();
+        }
+        if ( result instanceof Iterable<?> || result instanceof java.util.stream.BaseStream<?, ?>
+                || result instanceof java.util.concurrent.Future<?> ) {
+            return -1;
+        }
+        return 1;
+    }
+
+    private long persistenceContextSize() {
+        Object holder = TransactionSynchronizationManager.getResource(entityManagerFactory.get());
+        if ( holder instanceof EntityManagerHolder entityManagerHolder ) {
+            return entityManagerHolder.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount();
+        }
+        return -1;
+    }
+
+    private record MethodMeters(Timer success, Timer error, DistributionSummary rows,
+                                DistributionSummary statements, DistributionSummary persistenceContextSize) {
+    }
+
+}
@@ -0,0 +1,38 @@
+package study.datajpa.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Slf4j
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    private final int warnThreshold;
+
+    public SqlStatementCountFilter(int warnThreshold) {
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatementCounter.Counts counts = SqlStatementCounter.current();
+            if ( counts.getStatements() > warnThreshold ) {
+                log.warn("{} {} executed {} SQL statements ({} selects), threshold is {}. First statements: {}",
+                        request.getMethod(), request.getRequestURI(), counts.getStatements(), counts.getSelects(),
+                        warnThreshold, counts.getRecorded().subList(0, Math.min(5, counts.getRecorded().size())));
+            }
+            SqlStatementCounter.reset();
+        }
+    }
+
+}
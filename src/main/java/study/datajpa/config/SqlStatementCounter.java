@@ -0,0 +1,75 @@
+package study.datajpa.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 현재 스레드에서 준비된 SQL 문을 센다. 요청 단위는 {@link SqlStatementCountFilter},
+ * 테스트 단위는 테스트 쪽 SqlStatementBudget 이 {@link #reset()} 후 결과를 확인한다.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final int MAX_RECORDED = 50;
+    private static final ThreadLocal<Counts> COUNTS = ThreadLocal.withInitial(Counts::new);
+
+    @Override
+    public String inspect(String sql) {
+        COUNTS.get().record(sql);
+        return sql;
+    }
+
+    public static Counts current() {
+        return COUNTS.get();
+    }
+
+    public static void reset() {
+        COUNTS.get().clear();
+    }
+
+    public static class Counts {
+
+        private long statements;
+        private long selects;
+        private final List<String> recorded = new ArrayList<>();
+
+        private void record(String sql) {
+            ++statements;
+            if ( isSelect(sql) ) {
+                ++selects;
+            }
+            if ( recorded.size() < MAX_RECORDED ) {
+                recorded.add(sql);
+            }
+        }
+
+        private void clear() {
+            statements = 0;
+            selects = 0;
+            recorded.clear();
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        // 시퀀스 조회는 제외한 select 수
+        public long getSelects() {
+            return selects;
+        }
+
+        public List<String> getRecorded() {
+            return Collections.unmodifiableList(recorded);
+        }
+
+        private static boolean isSelect(String sql) {
+            String trimmed = sql.stripLeading();
+            return trimmed.regionMatches(true, 0, "select", 0, 6)
+                    && !trimmed.regionMatches(true, 0, "select next value for", 0, 21);
+        }
+
+    }
+
+}
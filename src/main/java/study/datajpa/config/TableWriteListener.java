@@ -0,0 +1,7 @@
+package study.datajpa.config;
+
+public interface TableWriteListener {
+
+    void onWrite(String table, String sql);
+
+}
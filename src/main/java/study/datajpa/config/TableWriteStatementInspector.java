@@ -0,0 +1,69 @@
+package study.datajpa.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * insert/update/delete/merge 문의 대상 테이블을 {@link TableWriteListener} 에 알린다.
+ * 엔티티 저장, JPQL 벌크 연산, 네이티브 쿼리 모두 이 경로를 지난다.
+ */
+public class TableWriteStatementInspector implements StatementInspector {
+
+    private static final Pattern WRITE = Pattern.compile(
+            "^\\s*(?:insert\\s+into|update|delete\\s+from|delete|merge\\s+into)\\s+([\\w.\"`]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final ObjectProvider<TableWriteListener> listenerProvider;
+    private volatile List<TableWriteListener> listeners;
+
+    public TableWriteStatementInspector(ObjectProvider<TableWriteListener> listenerProvider) {
+        this.listenerProvider = listenerProvider;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if ( !isWrite(sql) ) {
+            return sql;
+        }
+        Matcher matcher = WRITE.matcher(sql);
+        if ( matcher.find() ) {
+            String table = tableName(matcher.group(1));
+            for (TableWriteListener listener : listeners()) {
+                listener.onWrite(table, sql);
+            }
+        }
+        return sql;
+    }
+
+    // 리스너가 EntityManagerFactory 에 의존할 수 있으므로 첫 쓰기 시점에 조회한다
+    private List<TableWriteListener> listeners() {
+        List<TableWriteListener> result = listeners;
+        if ( result == null ) {
+            result = listenerProvider.orderedStream().toList();
+            listeners = result;
+        }
+        return result;
+    }
+
+    private static boolean isWrite(String sql) {
+        for ( int i = 0; i < sql.length(); ++i ) {
+            char c = Character.toLowerCase(sql.charAt(i));
+            if ( !Character.isWhitespace(c) ) {
+                return c == 'i' || c == 'u' || c == 'd' || c == 'm';
+            }
+        }
+        return false;
+    }
+
+    private static String tableName(String qualified) {
+        String name = qualified.replace("\"", "").replace("`", "");
+        int dot = name.lastIndexOf('.');
+        return (dot < 0 ? name : name.substring(dot + 1)).toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -0,0 +1,28 @@
+package study.datajpa.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+// TableWriteListener 가 받은 쓰기 문장 분류. 엔티티 단위 문장은 Hibernate 이벤트로 따로 처리한다
+public final class TableWrites {
+
+    // Hibernate 가 엔티티 단위로 만드는 문장: 단건 insert ... values, 기본키 조건 update/delete
+    private static final Pattern ENTITY_INSERT = Pattern.compile(
+            "^\\s*insert\\s+into\\s+\\S+\\s*\\([^)]*\\)\\s*values\\s*\\([?,\\s]*\\)\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Map<String, Pattern> KEYED_WRITE = new ConcurrentHashMap<>();
+
+    private TableWrites() {
+    }
+
+    // JPQL/네이티브 벌크 연산처럼 어떤 행이 바뀌었는지 알 수 없는 쓰기인지 (idColumn 은 그 테이블의 기본키 컬럼)
+    public static boolean isBulkWrite(String sql, String idColumn) {
+        return !ENTITY_INSERT.matcher(sql).find()
+                && !KEYED_WRITE.computeIfAbsent(idColumn, TableWrites::keyedWrite).matcher(sql).find();
+    }
+
+    private static Pattern keyedWrite(String idColumn) {
+        return Pattern.compile("\\swhere\\s+" + Pattern.quote(idColumn) + "\\s*=\\s*\\?\\s*$", Pattern.CASE_INSENSITIVE);
+    }
+
+}
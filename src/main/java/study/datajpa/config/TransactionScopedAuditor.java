@@ -0,0 +1,44 @@
+package study.datajpa.config;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * AuditorAware 를 트랜잭션당 한 번만 호출하고 결과를 트랜잭션 리소스로 재사용한다.
+ * 트랜잭션 동기화가 없으면 매번 호출한다.
+ */
+public class TransactionScopedAuditor {
+
+    private static final Object NONE = new Object();
+
+    private final AuditorAware<?> auditorAware;
+
+    public TransactionScopedAuditor(AuditorAware<?> auditorAware) {
+        this.auditorAware = auditorAware;
+    }
+
+    public String currentAuditor() {
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            return resolve();
+        }
+        Object auditor = TransactionSynchronizationManager.getResource(this);
+        if ( auditor == null ) {
+            String resolved = resolve();
+            auditor = resolved == null ? NONE : resolved;
+            TransactionSynchronizationManager.bindResource(this, auditor);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TransactionScopedAuditor.this);
+                }
+            });
+        }
+        return auditor == NONE ? null : (String) auditor;
+    }
+
+    private String resolve() {
+        return auditorAware.getCurrentAuditor().map(Object::toString).orElse(null);
+    }
+
+}
@@ -0,0 +1,62 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * app.virtual-threads.enabled=true 이면 Tomcat 요청 처리와 MVC 비동기 처리를 가상 스레드에서 실행하고,
+ * dataSource 앞에 동시 커넥션 수 제한을 둔다.
+ * 소스 호환성이 19 라서 가상 스레드 API 는 리플렉션으로 호출한다. Java 21, 또는 19/20 + --enable-preview 필요.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            throw new IllegalStateException("virtual threads need Java 21, or Java 19/20 with --enable-preview", e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    // StreamingResponseBody 등 MVC 비동기 처리
+    @Bean(name = "applicationTaskExecutor")
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    @Bean
+    public static BeanPostProcessor admissionControlPostProcessor(
+            @Value("${app.virtual-threads.max-concurrent-connections:${spring.datasource.hikari.maximum-pool-size:10}}") int limit,
+            @Value("${app.virtual-threads.admission-timeout:30s}") Duration timeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ( beanName.equals("dataSource") && bean instanceof DataSource dataSource
+                        && !(bean instanceof AdmissionControlDataSource) ) {
+                    return new AdmissionControlDataSource(dataSource, limit, timeout);
+                }
+                return bean;
+            }
+        };
+    }
+
+}
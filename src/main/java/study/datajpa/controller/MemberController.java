@@ -1,28 +1,57 @@
 package study.datajpa.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.datajpa.dto.CursorPage;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.CountStrategy;
+import study.datajpa.repository.MemberCursor;
 import study.datajpa.repository.MemberRepository;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.member-export.fetch-size:500}")
+    private int exportFetchSize;
 
     @PostConstruct
     public void init() {
+        List<Member> members = new ArrayList<>();
         for ( int i = 0; i < 100; ++i ) {
-            memberRepository.save(new Member("User" + i, i));
+            members.add(new Member("User" + i, i));
         }
+        memberRepository.saveAllBatched(members, 100);
     }
 
     @GetMapping("/members/{id}")
@@ -38,8 +67,46 @@ public class MemberController {
 
     @GetMapping("/members")
     public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable) {
-        return memberRepository.findAll(pageable)
-                .map(MemberDto::new);
+        return memberRepository.findMemberDtoPage(pageable, CountStrategy.CACHED);
+    }
+
+    @GetMapping(value = "/members", params = "cursor")
+    public CursorPage<MemberDto> scroll(@RequestParam("cursor") String cursor,
+                                        @RequestParam(value = "size", defaultValue = "5") int size) {
+        MemberCursor after;
+        try {
+            after = MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        Slice<MemberDto> slice = memberRepository.findMemberDtoAfter(
+                after.getLastId(), Math.min(Math.max(size, 1), MAX_SCROLL_SIZE));
+        List<MemberDto> content = slice.getContent();
+        String nextCursor = content.isEmpty()
+                ? null
+                : MemberCursor.after(content.get(content.size() - 1).getId()).encode();
+        return new CursorPage<>(content, nextCursor, slice.hasNext());
+    }
+
+    @GetMapping(value = "/members/export", produces = "application/x-ndjson")
+    public StreamingResponseBody export() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return out -> readOnly.executeWithoutResult(status -> writeNdjson(out));
+    }
+
+    private void writeNdjson(OutputStream out) {
+        try (Stream<MemberDto> members = memberRepository.streamMemberDto(exportFetchSize)) {
+            Iterator<MemberDto> iterator = members.iterator();
+            while ( iterator.hasNext() ) {
+                out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
@@ -0,0 +1,66 @@
+package study.datajpa.entity;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.auditing.AuditingHandler;
+import study.datajpa.config.AuditClock;
+import study.datajpa.config.TransactionScopedAuditor;
+
+import java.time.LocalDateTime;
+
+/**
+ * BaseTimeEntity/BaseEntity 감사 필드 리스너. Hibernate 가 SpringBeanContainer 로 생성한다.
+ * standard: AuditingEntityListener 와 같이 AuditingHandler 에 위임 (쓰기마다 auditor 조회, 리플렉션으로 필드 설정)
+ * fast: 트랜잭션당 auditor 한 번, AuditClock 시각, 패키지 전용 setter 로 직접 설정
+ */
+public class AuditListener {
+
+    private final boolean fast;
+    private final ObjectProvider<AuditingHandler> auditingHandler;
+    private final AuditClock clock;
+    private final TransactionScopedAuditor auditor;
+
+    public AuditListener(@Value("${app.auditing.mode:standard}") String mode,
+                         ObjectProvider<AuditingHandler> auditingHandler,
+                         AuditClock clock, TransactionScopedAuditor auditor) {
+        this.fast = mode.equals("fast");
+        this.auditingHandler = auditingHandler;
+        this.clock = clock;
+        this.auditor = auditor;
+    }
+
+    @PrePersist
+    public void touchForCreate(Object target) {
+        if ( !fast ) {
+            auditingHandler.getObject().markCreated(target);
+            return;
+        }
+        if ( target instanceof BaseTimeEntity entity ) {
+            LocalDateTime now = clock.now();
+            entity.setCreatedDate(now);
+            entity.setLastModifiedDate(now);
+        }
+        if ( target instanceof BaseEntity entity ) {
+            String current = auditor.currentAuditor();
+            entity.setCreatedBy(current);
+            entity.setLastModifiedBy(current);
+        }
+    }
+
+    @PreUpdate
+    public void touchForUpdate(Object target) {
+        if ( !fast ) {
+            auditingHandler.getObject().markModified(target);
+            return;
+        }
+        if ( target instanceof BaseTimeEntity entity ) {
+            entity.setLastModifiedDate(clock.now());
+        }
+        if ( target instanceof BaseEntity entity ) {
+            entity.setLastModifiedBy(auditor.currentAuditor());
+        }
+    }
+
+}
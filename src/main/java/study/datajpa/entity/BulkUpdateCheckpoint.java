@@ -0,0 +1,45 @@
+package study.datajpa.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+import static jakarta.persistence.GenerationType.SEQUENCE;
+
+// 청크 단위 벌크 업데이트에서 완료된 id 구간. 업데이트와 같은 트랜잭션에서 저장된다
+// 다시 실행할 때 같은 청크 크기와 같은 update(JPQL + 파라미터, signature)인지 확인한다
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"job_name", "range_start"}))
+public class BulkUpdateCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = SEQUENCE, generator = "bulk_update_checkpoint_seq")
+    @SequenceGenerator(name = "bulk_update_checkpoint_seq", sequenceName = "bulk_update_checkpoint_seq", allocationSize = 50)
+    private Long id;
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+    @Column(name = "range_start", nullable = false)
+    private long rangeStart;
+    private long rangeEnd;
+    private int chunkSize;
+    @Column(length = 32)
+    private String signature;
+    private int updatedRows;
+    private LocalDateTime completedAt;
+
+    public BulkUpdateCheckpoint(String jobName, String signature, long rangeStart, int chunkSize, int updatedRows) {
+        this.jobName = jobName;
+        this.signature = signature;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeStart + chunkSize;
+        this.chunkSize = chunkSize;
+        this.updatedRows = updatedRows;
+        this.completedAt = LocalDateTime.now();
+    }
+
+}
@@ -32,7 +32,7 @@ public class Item implements Persistable<String> {
 
     @Override
     public String getId() {
-        return null;
+        return id;
     }
 
     @Override
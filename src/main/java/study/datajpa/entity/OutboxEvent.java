@@ -0,0 +1,45 @@
+package study.datajpa.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+import static jakarta.persistence.GenerationType.SEQUENCE;
+
+// Member/Team 변경 이벤트. 변경과 같은 트랜잭션에서 OutboxEventWriter 가 쓰고 OutboxRelay 가 전달 후 지운다
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(exclude = "payload")
+@Table(indexes = @Index(name = "idx_outbox_event_partition", columnList = "partition_no, id"))
+public class OutboxEvent {
+
+    public enum EventType { CREATED, UPDATED, DELETED, BULK_WRITE }
+
+    @Id
+    @GeneratedValue(strategy = SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 1)
+    private Long id;
+    @Column(nullable = false)
+    private String aggregateType;
+    private Long aggregateId;
+    // 전달 순서를 지키는 단위. 엔티티는 "Member:1", 벌크 연산은 "Member"
+    @Column(nullable = false)
+    private String aggregateKey;
+    // aggregateKey 로 정해지는 파티션. 한 파티션은 한 번에 relay 하나만 id 순서로 전달한다
+    @Column(name = "partition_no", nullable = false)
+    private int partition;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EventType eventType;
+    @Column(length = 4000)
+    private String payload;
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,24 @@
+package study.datajpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+// outbox 파티션 잠금용 행. relay 는 이 행을 SKIP LOCKED 로 잠근 동안만 그 파티션의 이벤트를 전달한다
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OutboxPartition {
+
+    @Id
+    @Column(name = "partition_no")
+    private Integer partition;
+
+    public OutboxPartition(Integer partition) {
+        this.partition = partition;
+    }
+
+}
@@ -2,20 +2,36 @@ package study.datajpa.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static jakarta.persistence.GenerationType.SEQUENCE;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@BatchSize(size = 100)
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team extends BaseEntity {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = SEQUENCE, generator = "team_seq")
+    @SequenceGenerator(name = "team_seq", sequenceName = "team_seq", allocationSize = 100)
     @Column(name = "team_id")
     private Long id;
     private String name;
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team-members")
+    @BatchSize(size = 100)
+    // size(), contains() 는 count/exists 쿼리로, add() 는 초기화 없이 대기열에 쌓았다가 초기화할 때 반영
+    @LazyCollection(LazyCollectionOption.EXTRA)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
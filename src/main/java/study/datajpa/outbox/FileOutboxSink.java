@@ -0,0 +1,56 @@
+package study.datajpa.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import study.datajpa.entity.OutboxEvent;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// 이벤트를 한 줄에 하나씩 JSON 으로 파일 끝에 붙인다. 배치마다 디스크에 내린 뒤 돌아가므로 outbox 삭제 전에 기록이 남는다
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if ( parent != null ) {
+                Files.createDirectories(parent);
+            }
+            try (FileOutputStream out = new FileOutputStream(file.toFile(), true);
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                for ( OutboxEvent event : events ) {
+                    ObjectNode line = objectMapper.createObjectNode();
+                    line.put("id", event.getId());
+                    line.put("aggregateType", event.getAggregateType());
+                    line.put("aggregateId", event.getAggregateId());
+                    line.put("eventType", event.getEventType().name());
+                    line.set("payload", objectMapper.readTree(event.getPayload()));
+                    line.put("createdAt", String.valueOf(event.getCreatedAt()));
+                    writer.write(objectMapper.writeValueAsString(line));
+                    writer.write('\n');
+                }
+                writer.flush();
+                out.getChannel().force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot append outbox events to " + file, e);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+}
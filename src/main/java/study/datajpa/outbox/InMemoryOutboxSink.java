@@ -0,0 +1,37 @@
+package study.datajpa.outbox;
+
+import study.datajpa.entity.OutboxEvent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+// 테스트/로컬용. 전달받은 이벤트를 순서대로 최근 capacity 개까지만 보관한다 (넘치면 오래된 것부터 버린다)
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final int capacity;
+    private final Deque<OutboxEvent> events = new ArrayDeque<>();
+
+    public InMemoryOutboxSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> batch) {
+        for ( OutboxEvent event : batch ) {
+            if ( events.size() == capacity ) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    public synchronized List<OutboxEvent> getEvents() {
+        return List.copyOf(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+
+}
@@ -0,0 +1,226 @@
+package study.datajpa.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.config.TableWriteListener;
+import study.datajpa.config.TableWrites;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.OutboxEvent;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberBulkUpdateListener;
+import study.datajpa.repository.MemberBulkUpdates;
+
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member/Team 의 insert/update/delete 를 같은 트랜잭션의 outbox_event 행으로 남긴다.
+ * 엔티티 변경은 Hibernate 이벤트로 모아 두었다가 커밋 직전 flush 뒤에 한 번의 배치 insert 로 쓰고,
+ * bulkAgePlus 같은 회원 JPQL 벌크 update 는 {@link MemberBulkUpdates} 가 실행 직전에 잠그며 훑은 대상 행을
+ * 받는 대로 update 뒤의 값으로 엔티티마다 UPDATED 이벤트를 써서, 대상이 테이블 전체여도 id 를 모아 두지 않는다.
+ * 그렇게 알리지 않은 벌크 쓰기(네이티브 SQL, Team 벌크 update 등)는 바뀐 행을 알 수 없으므로
+ * 실행된 SQL 을 담은 BULK_WRITE 이벤트 하나로 남긴다.
+ * 같은 엔티티의 변경은 행 잠금으로 직렬화되므로 id(시퀀스) 순서가 곧 엔티티별 변경 순서이고,
+ * 같은 aggregate_key 는 항상 같은 파티션(app.outbox.partitions)에 들어간다.
+ * app.outbox.enabled=false 이면 리스너를 등록하지 않고 아무것도 쓰지 않는다.
+ */
+@Component
+public class OutboxEventWriter implements TableWriteListener, MemberBulkUpdateListener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String INSERT = "insert into outbox_event" +
+            " (id, aggregate_type, aggregate_id, aggregate_key, partition_no, event_type, payload, created_at)" +
+            " values (next value for outbox_event_seq, ?, ?, ?, ?, ?, ?, ?)";
+    private static final Map<String, String> BULK_TABLES = Map.of("member", "Member", "team", "Team");
+
+    private final EntityManagerFactory emf;
+    private final ObjectMapper objectMapper;
+    private final int partitions;
+    private final boolean enabled;
+    private final Map<SessionImplementor, List<Pending>> pending = new ConcurrentHashMap<>();
+
+    public OutboxEventWriter(EntityManagerFactory emf, ObjectMapper objectMapper,
+                             @Value("${app.outbox.partitions:16}") int partitions,
+                             @Value("${app.outbox.enabled:false}") boolean enabled) {
+        this.emf = emf;
+        this.objectMapper = objectMapper;
+        this.partitions = partitions;
+        this.enabled = enabled;
+    }
+
+    // 파티션 수를 바꾸려면 outbox 를 모두 비운 뒤 바꿔야 엔티티별 순서가 유지된다
+    public static int partition(String aggregateKey, int partitions) {
+        return Math.floorMod(aggregateKey.hashCode(), partitions);
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        if ( !enabled ) {
+            return;
+        }
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    // 앞서 모은 엔티티 이벤트를 먼저 써야 같은 트랜잭션 안의 변경 순서가 id 순서와 맞는다
+    @Override
+    public void onRows(List<Row> rows) {
+        if ( !enabled || !(TransactionSynchronizationManager.getResource(emf) instanceof EntityManagerHolder holder) ) {
+            return;
+        }
+        EventSource session = holder.getEntityManager().unwrap(EventSource.class);
+        List<Pending> events = pending(session);
+        List<Pending> chunk = new ArrayList<>(events);
+        events.clear();
+        for ( Row row : rows ) {
+            chunk.add(new Pending("Member", row.id(), OutboxEvent.EventType.UPDATED,
+                    memberPayload(row.id(), row.username(), row.newAge(), row.teamId())));
+        }
+        write(session, chunk);
+    }
+
+    @Override
+    public void onWrite(String table, String sql) {
+        String aggregateType = BULK_TABLES.get(table);
+        if ( !enabled || aggregateType == null || !TableWrites.isBulkWrite(sql, table + "_id") ) {
+            return;
+        }
+        // JPQL 벌크 연산은 트랜잭션 안에서만 실행된다
+        if ( TransactionSynchronizationManager.getResource(emf) instanceof EntityManagerHolder holder ) {
+            // 대상 행을 알린 update 는 onRows 에서 엔티티별 이벤트로 남겼다
+            if ( "member".equals(table) && MemberBulkUpdates.isCaptured() ) {
+                return;
+            }
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("table", table);
+            payload.put("statement", sql);
+            pending(holder.getEntityManager().unwrap(EventSource.class))
+                    .add(new Pending(aggregateType, null, OutboxEvent.EventType.BULK_WRITE, json(payload)));
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getEntity(), OutboxEvent.EventType.CREATED);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getEntity(), OutboxEvent.EventType.UPDATED);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getEntity(), OutboxEvent.EventType.DELETED);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(EventSource session, Object entity, OutboxEvent.EventType type) {
+        if ( entity instanceof Member member ) {
+            // 프록시여도 id 는 초기화 없이 읽힌다
+            Long teamId = member.getTeam() == null ? null : member.getTeam().getId();
+            pending(session).add(new Pending("Member", member.getId(), type,
+                    memberPayload(member.getId(), member.getUsername(), member.getAge(), teamId)));
+        } else if ( entity instanceof Team team ) {
+            pending(session).add(new Pending("Team", team.getId(), type, teamPayload(team.getId(), team.getName())));
+        }
+    }
+
+    // 세션(트랜잭션)마다 한 번 커밋 직전 쓰기, 종료 시 정리 콜백을 등록한다
+    private List<Pending> pending(EventSource session) {
+        List<Pending> events = pending.get(session);
+        if ( events == null ) {
+            events = new ArrayList<>();
+            pending.put(session, events);
+            session.getActionQueue().registerProcess(s -> write(s, pending.remove(session)));
+            session.getActionQueue().registerProcess((success, s) -> pending.remove(session));
+        }
+        return events;
+    }
+
+    private void write(SessionImplementor session, List<Pending> events) {
+        if ( events == null || events.isEmpty() ) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        session.doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                for ( Pending event : events ) {
+                    insert.setString(1, event.aggregateType());
+                    if ( event.aggregateId() == null ) {
+                        insert.setNull(2, Types.BIGINT);
+                    } else {
+                        insert.setLong(2, event.aggregateId());
+                    }
+                    insert.setString(3, event.aggregateKey());
+                    insert.setInt(4, partition(event.aggregateKey(), partitions));
+                    insert.setString(5, event.type().name());
+                    insert.setString(6, event.payload());
+                    insert.setTimestamp(7, now);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+    }
+
+    private String memberPayload(Long id, String username, int age, Long teamId) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", id);
+        payload.put("username", username);
+        payload.put("age", age);
+        payload.put("teamId", teamId);
+        return json(payload);
+    }
+
+    private String teamPayload(Long id, String name) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", id);
+        payload.put("name", name);
+        return json(payload);
+    }
+
+    private String json(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Pending(String aggregateType, Long aggregateId, OutboxEvent.EventType type, String payload) {
+
+        String aggregateKey() {
+            return aggregateId == null ? aggregateType : aggregateType + ":" + aggregateId;
+        }
+
+    }
+
+}
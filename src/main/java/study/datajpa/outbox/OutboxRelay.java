@@ -0,0 +1,103 @@
+package study.datajpa.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.OutboxEvent;
+import study.datajpa.entity.OutboxPartition;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * outbox_event 를 파티션별로 batchSize 개씩 가져와 {@link OutboxSink} 로 보내고 같은 트랜잭션에서 지운다 (최소 한 번 전달).
+ * 파티션은 outbox_partition 행을 FOR UPDATE SKIP LOCKED 로 잠가 한 번에 relay 하나만 처리하므로
+ * 여러 relay(스레드, 인스턴스)가 동시에 돌아도 파티션을 나눠 가질 뿐 같은 엔티티의 이벤트 순서는 바뀌지 않는다.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final String LOCK_PARTITION =
+            "select partition_no from outbox_partition where partition_no = ? for update skip locked";
+    private static final String CLAIM = "select * from outbox_event where partition_no = ? order by id limit ?";
+
+    private final EntityManager em;
+    private final TransactionTemplate tx;
+    private final OutboxSink sink;
+    private final int batchSize;
+    private final int partitions;
+    private final Counter published;
+    // relay 마다 다른 파티션부터 시도하도록
+    private final AtomicInteger nextPartition = new AtomicInteger();
+
+    public OutboxRelay(EntityManager em, PlatformTransactionManager transactionManager, OutboxSink sink,
+                       @Value("${app.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.partitions:16}") int partitions, MeterRegistry meterRegistry) {
+        this.em = em;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.partitions = partitions;
+        this.published = Counter.builder("outbox.published").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void createPartitions() {
+        tx.executeWithoutResult(status -> {
+            for ( int partition = 0; partition < partitions; ++partition ) {
+                if ( em.find(OutboxPartition.class, partition) == null ) {
+                    em.persist(new OutboxPartition(partition));
+                }
+            }
+        });
+    }
+
+    // 잠글 수 있는 파티션 중 이벤트가 있는 첫 파티션에서 한 배치를 전달하고 전달한 이벤트 수를 돌려준다
+    public int relayBatch() {
+        int start = Math.floorMod(nextPartition.getAndIncrement(), partitions);
+        Integer count = tx.execute(status -> {
+            for ( int i = 0; i < partitions; ++i ) {
+                int partition = (start + i) % partitions;
+                if ( em.createNativeQuery(LOCK_PARTITION).setParameter(1, partition).getResultList().isEmpty() ) {
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                List<OutboxEvent> events = em.createNativeQuery(CLAIM, OutboxEvent.class)
+                        .setParameter(1, partition)
+                        .setParameter(2, batchSize)
+                        .getResultList();
+                if ( events.isEmpty() ) {
+                    continue;
+                }
+                sink.publish(events);
+                em.createQuery("delete from OutboxEvent e where e.id in :ids")
+                        .setParameter("ids", events.stream().map(OutboxEvent::getId).toList())
+                        .executeUpdate();
+                return events.size();
+            }
+            return 0;
+        });
+        published.increment(count);
+        return count;
+    }
+
+    // 전달할 이벤트가 없거나 남은 파티션을 모두 다른 relay 가 잡고 있을 때까지 반복하고 전달한 이벤트 수를 돌려준다
+    public long drain() {
+        long total = 0;
+        int count;
+        while ( (count = relayBatch()) > 0 ) {
+            total += count;
+        }
+        return total;
+    }
+
+    public OutboxSink getSink() {
+        return sink;
+    }
+
+}
@@ -0,0 +1,30 @@
+package study.datajpa.outbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true")
+public class OutboxRelayJob {
+
+    private final OutboxRelay relay;
+
+    // 전달에 실패한 배치는 outbox 에 남아 다음 실행에서 다시 전달된다
+    @Scheduled(fixedDelayString = "${app.outbox.relay.fixed-delay:1000}")
+    public void relay() {
+        try {
+            long count = relay.drain();
+            if ( count > 0 ) {
+                log.debug("Relayed {} outbox events", count);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+package study.datajpa.outbox;
+
+import study.datajpa.entity.OutboxEvent;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface OutboxSink {
+
+    // 한 배치를 id 순서대로 전달한다. 예외를 던지면 배치가 outbox 에 그대로 남아 다음 relay 에서 다시 전달된다
+    void publish(List<OutboxEvent> events);
+
+}
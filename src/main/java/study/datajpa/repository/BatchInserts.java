@@ -0,0 +1,28 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+
+final class BatchInserts {
+
+    private BatchInserts() {
+    }
+
+    // batchSize 마다 flush/clear 해서 JDBC 배치로 내보내고 영속성 컨텍스트가 커지지 않게 한다
+    static <T> int persistAll(EntityManager em, Iterable<T> entities, int batchSize) {
+        if ( batchSize < 1 ) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        int count = 0;
+        for (T entity : entities) {
+            em.persist(entity);
+            if ( ++count % batchSize == 0 ) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+}
@@ -0,0 +1,11 @@
+package study.datajpa.repository;
+
+@FunctionalInterface
+public interface BulkUpdateListener {
+
+    BulkUpdateListener NONE = (completedChunks, totalChunks, updatedRows) -> { };
+
+    // 청크가 커밋될 때마다 호출된다. 병렬 실행 시 여러 스레드에서 호출될 수 있다
+    void onProgress(int completedChunks, int totalChunks, long updatedRows);
+
+}
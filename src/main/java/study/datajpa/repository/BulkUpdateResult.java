@@ -0,0 +1,19 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+@Getter
+public class BulkUpdateResult {
+
+    private final int totalChunks;
+    // 이전 실행에서 이미 끝나 건너뛴 청크 수
+    private final int resumedChunks;
+    private final long updatedRows;
+
+    public BulkUpdateResult(int totalChunks, int resumedChunks, long updatedRows) {
+        this.totalChunks = totalChunks;
+        this.resumedChunks = resumedChunks;
+        this.updatedRows = updatedRows;
+    }
+
+}
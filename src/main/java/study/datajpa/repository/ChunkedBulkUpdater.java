@@ -0,0 +1,169 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import study.datajpa.entity.BulkUpdateCheckpoint;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 하나의 거대한 update 를 id 구간별 짧은 트랜잭션(REQUIRES_NEW)으로 나눠 실행한다.
+ * 업데이트 JPQL 은 :fromId 이상 :toId 미만 조건을 포함해야 하고, 구간 경계는 chunkSize 배수로 고정되어
+ * 실패 후 같은 jobName 으로 다시 실행하면 체크포인트가 남은 구간을 건너뛴다.
+ * 남은 체크포인트의 청크 크기나 update(JPQL 과 파라미터)가 이번 실행과 다르면 구간이 겹치거나 빠지므로 시작하지 않는다.
+ * 모든 청크가 끝나면 그 작업의 체크포인트를 지우므로 같은 jobName 을 다음 실행에 다시 쓸 수 있다.
+ * 트랜잭션 안에서는 호출할 수 없다. 호출한 트랜잭션이 쓴 행은 청크 트랜잭션이 그 잠금을 기다리며(같은 스레드면 교착)
+ * 커밋되지 않은 행은 청크 트랜잭션에 보이지 않기 때문이다.
+ * 병렬 실행은 호출 스레드와 repositoryExecutor 의 작업 parallelism - 1 개가 청크 큐를 나눠 가져가는 방식이다.
+ * Member 를 바꾸는 청크는 MemberBulkUpdates 로 대상 행을 알리므로 팀 요약(team_member_summary)과 outbox 도 청크 트랜잭션에서 함께 반영된다.
+ */
+@Component
+public class ChunkedBulkUpdater {
+
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final AsyncTaskExecutor executor;
+    private final MemberBulkUpdates memberBulkUpdates;
+
+    public ChunkedBulkUpdater(EntityManager em, PlatformTransactionManager transactionManager,
+                              @Qualifier("repositoryExecutor") AsyncTaskExecutor executor,
+                              MemberBulkUpdates memberBulkUpdates) {
+        this.em = em;
+        this.transactionManager = transactionManager;
+        this.executor = executor;
+        this.memberBulkUpdates = memberBulkUpdates;
+    }
+
+    public BulkUpdateResult execute(String jobName, Class<?> entityClass, String updateJpql, Map<String, ?> parameters,
+                                    int chunkSize, int parallelism, BulkUpdateListener listener) {
+        if ( TransactionSynchronizationManager.isActualTransactionActive() ) {
+            throw new IllegalStateException("Chunked bulk update '" + jobName + "' must run outside a transaction; "
+                    + "commit the caller's changes first");
+        }
+        String entityName = em.getMetamodel().entity(entityClass).getName();
+        Object[] bounds = (Object[]) em.createQuery("select min(e.id), max(e.id) from " + entityName + " e")
+                .getSingleResult();
+        if ( bounds[0] == null ) {
+            return new BulkUpdateResult(0, 0, 0);
+        }
+        long first = Math.floorDiv(((Number) bounds[0]).longValue(), chunkSize) * (long) chunkSize;
+        long last = ((Number) bounds[1]).longValue();
+
+        String signature = signature(updateJpql, parameters);
+        Set<Long> completed = new HashSet<>();
+        for ( BulkUpdateCheckpoint checkpoint : em.createQuery(
+                        "select c from BulkUpdateCheckpoint c where c.jobName = :jobName", BulkUpdateCheckpoint.class)
+                .setParameter("jobName", jobName)
+                .getResultList() ) {
+            if ( checkpoint.getChunkSize() != chunkSize || !signature.equals(checkpoint.getSignature())
+                    || checkpoint.getRangeEnd() != checkpoint.getRangeStart() + chunkSize
+                    || Math.floorMod(checkpoint.getRangeStart(), chunkSize) != 0 ) {
+                throw new IllegalStateException("Bulk update job '" + jobName + "' has checkpoints from a run with "
+                        + "another chunk size or update; resume it with the same arguments or delete its checkpoints");
+            }
+            completed.add(checkpoint.getRangeStart());
+        }
+        List<Long> pending = new ArrayList<>();
+        int totalChunks = 0;
+        for ( long start = first; start <= last; start += chunkSize ) {
+            ++totalChunks;
+            if ( !completed.contains(start) ) {
+                pending.add(start);
+            }
+        }
+        int resumedChunks = totalChunks - pending.size();
+
+        TransactionTemplate chunkTx = new TransactionTemplate(transactionManager);
+        chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger done = new AtomicInteger(resumedChunks);
+        LongAdder updated = new LongAdder();
+        int total = totalChunks;
+        List<Runnable> chunks = pending.stream().<Runnable>map(start -> () -> {
+            Integer rows = chunkTx.execute(status -> {
+                Map<String, Object> chunkParameters = new HashMap<>(parameters);
+                chunkParameters.put("fromId", start);
+                chunkParameters.put("toId", start + chunkSize);
+                int count;
+                try (MemberBulkUpdates.Scope ignored = memberBulkUpdates.capture(updateJpql, chunkParameters)) {
+                    Query query = em.createQuery(updateJpql);
+                    chunkParameters.forEach(query::setParameter);
+                    count = query.executeUpdate();
+                }
+                em.persist(new BulkUpdateCheckpoint(jobName, signature, start, chunkSize, count));
+                return count;
+            });
+            updated.add(rows);
+            listener.onProgress(done.incrementAndGet(), total, updated.sum());
+        }).toList();
+
+        run(chunks, parallelism);
+        chunkTx.executeWithoutResult(status -> em.createQuery(
+                        "delete from BulkUpdateCheckpoint c where c.jobName = :jobName")
+                .setParameter("jobName", jobName)
+                .executeUpdate());
+        return new BulkUpdateResult(totalChunks, resumedChunks, updated.sum());
+    }
+
+    // 같은 update 인지 비교하는 값. 파라미터는 이름 순으로 넣는다
+    private static String signature(String updateJpql, Map<String, ?> parameters) {
+        String source = updateJpql + "\n" + new TreeMap<>(parameters);
+        return DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 첫 실패 뒤에는 남은 청크를 가져가지 않고, 실행 중인 청크가 끝나면 그 예외를 그대로 던진다
+    private void run(List<Runnable> chunks, int parallelism) {
+        Queue<Runnable> queue = new ConcurrentLinkedQueue<>(chunks);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            Runnable chunk;
+            while ( failure.get() == null && (chunk = queue.poll()) != null ) {
+                try {
+                    chunk.run();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        };
+        List<Future<?>> futures = new ArrayList<>();
+        for ( int i = 1; i < Math.min(parallelism, chunks.size()); ++i ) {
+            try {
+                futures.add(executor.submit(worker));
+            } catch (TaskRejectedException e) {
+                // 실행기가 가득 찼으면 남은 청크는 이미 제출한 작업과 호출 스레드가 처리한다
+                break;
+            }
+        }
+        worker.run();
+        try {
+            for ( Future<?> future : futures ) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, new IllegalStateException("interrupted while waiting for bulk update chunks", e));
+            queue.clear();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, new IllegalStateException(e.getCause()));
+        }
+        if ( failure.get() != null ) {
+            throw failure.get();
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.config.TableWriteListener;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 테이블별 count 결과 캐시. 쓰기 문장이 준비될 때 비우고, 트랜잭션이 끝난 뒤 한 번 더 비운다.
+ * 커밋 전에 다른 트랜잭션이 옛 count 를, 롤백될 트랜잭션이 자기 변경이 포함된 count 를 다시 올릴 수 있기 때문이다.
+ */
+@Component
+public class CountCache implements TableWriteListener {
+
+    private final long ttlNanos;
+    private final ConcurrentMap<String, Entry> counts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public CountCache(@Value("${app.count-cache.ttl:30s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public long get(String table, String key, LongSupplier loader) {
+        String cacheKey = table + ':' + key;
+        long now = System.nanoTime();
+        Entry entry = counts.get(cacheKey);
+        if ( entry != null && entry.expiresAt() - now > 0 ) {
+            return entry.count();
+        }
+
+        // 로딩 중에 쓰기가 들어오면 결과를 캐시하지 않는다
+        long generation = generation(table).get();
+        long count = loader.getAsLong();
+        if ( generation(table).get() == generation ) {
+            counts.put(cacheKey, new Entry(table, count, now + ttlNanos));
+        }
+        return count;
+    }
+
+    public void invalidate(String table) {
+        generation(table).incrementAndGet();
+        counts.values().removeIf(entry -> entry.table().equals(table));
+    }
+
+    @Override
+    public void onWrite(String table, String sql) {
+        invalidate(table);
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            afterCompletion().tables.add(table);
+        }
+    }
+
+    // 트랜잭션마다 하나만 등록하고 쓴 테이블을 모아 둔다 (배치 insert 마다 동기화를 늘리지 않도록)
+    private InvalidateAfterCompletion afterCompletion() {
+        for ( TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations() ) {
+            if ( synchronization instanceof InvalidateAfterCompletion registered && registered.owner() == this ) {
+                return registered;
+            }
+        }
+        InvalidateAfterCompletion registered = new InvalidateAfterCompletion();
+        TransactionSynchronizationManager.registerSynchronization(registered);
+        return registered;
+    }
+
+    private AtomicLong generation(String table) {
+        return generations.computeIfAbsent(table, t -> new AtomicLong());
+    }
+
+    private class InvalidateAfterCompletion implements TransactionSynchronization {
+
+        private final Set<String> tables = ConcurrentHashMap.newKeySet();
+
+        CountCache owner() {
+            return CountCache.this;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            tables.forEach(CountCache.this::invalidate);
+        }
+
+    }
+
+    private record Entry(String table, long count, long expiresAt) {
+    }
+
+}
@@ -0,0 +1,12 @@
+package study.datajpa.repository;
+
+public enum CountStrategy {
+
+    // 매번 count 쿼리 실행
+    EXACT,
+    // TTL 동안 캐시, 해당 테이블에 쓰기가 발생하면 무효화
+    CACHED,
+    // DB 통계의 추정치 사용 (조건이 없는 전체 count 에만 적용, 조건이 있으면 CACHED 로 동작)
+    ESTIMATED
+
+}
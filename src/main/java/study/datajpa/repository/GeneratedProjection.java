@@ -0,0 +1,293 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.matcher.ElementMatchers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.beans.Introspector;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSetMetaData;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 인터페이스 프로젝션의 구현 클래스를 ByteBuddy 로 한 번 생성해 타입별로 캐시한다.
+ * getter 는 public 필드를 바로 읽고, 값은 컬럼 라벨로 한 번 위치를 맞춘 뒤 행마다 위치로 채운다.
+ * JDK 프록시 + TupleBackedMap 조회 대신 일반 객체 생성과 필드 대입만 남는다.
+ * 중첩 인터페이스(getTeam().getName())는 "team.name", "team_name", "teamName" 라벨로 채우고,
+ * 중첩 값이 모두 null 이면 중첩 객체도 null 이다. @Value 를 쓰는 열린 프로젝션은 지원하지 않으므로
+ * 호출하는 쪽에서 {@link #isClosed(Class)} 로 확인해 Spring Data 프로젝션으로 넘긴다.
+ */
+public final class GeneratedProjection<T> {
+
+    private static final Map<Class<?>, GeneratedProjection<?>> CACHE = new ConcurrentHashMap<>();
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private final Class<T> type;
+    private final Node root;
+    private final List<String> paths;
+
+    private GeneratedProjection(Class<T> type) {
+        this.type = type;
+        this.root = new Node(type);
+        List<String> leafPaths = new ArrayList<>();
+        root.collectPaths("", leafPaths);
+        this.paths = List.copyOf(leafPaths);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> GeneratedProjection<T> of(Class<T> type) {
+        return (GeneratedProjection<T>) CACHE.computeIfAbsent(type, GeneratedProjection::new);
+    }
+
+    // 생성된 클래스로 채울 수 있는 닫힌 프로젝션인지 (중첩 인터페이스 포함 @Value 나 파라미터 있는 메서드가 없어야 한다)
+    public static boolean isClosed(Class<?> type) {
+        if ( !type.isInterface() ) {
+            return false;
+        }
+        for ( Method method : type.getMethods() ) {
+            if ( method.isDefault() || Modifier.isStatic(method.getModifiers()) ) {
+                continue;
+            }
+            if ( method.getParameterCount() != 0 || method.isAnnotationPresent(Value.class) ) {
+                return false;
+            }
+            if ( Node.isNested(method.getReturnType()) && !isClosed(method.getReturnType()) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    // "team.name" 처럼 점으로 이은 값 경로, 중첩 포함 깊이 우선 순서
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    // columnLabels 순서의 행(Object[])을 채우는 바인더. 라벨과 경로는 대소문자, '_', '.' 를 무시하고 맞춘다
+    public Binder<T> binder(List<String> columnLabels) {
+        Map<String, Integer> columnByKey = new HashMap<>();
+        for ( int i = 0; i < columnLabels.size(); ++i ) {
+            columnByKey.putIfAbsent(key(columnLabels.get(i)), i);
+        }
+        int[] columns = new int[paths.size()];
+        for ( int i = 0; i < paths.size(); ++i ) {
+            columns[i] = columnByKey.getOrDefault(key(paths.get(i)), -1);
+        }
+        return new Binder<>(type, root, columns);
+    }
+
+    public List<T> fromTuples(List<Tuple> tuples) {
+        if ( tuples.isEmpty() ) {
+            return List.of();
+        }
+        List<String> labels = tuples.get(0).getElements().stream().map(TupleElement::getAlias).toList();
+        Binder<T> binder = binder(labels);
+        List<T> result = new ArrayList<>(tuples.size());
+        for ( Tuple tuple : tuples ) {
+            result.add(binder.bind(tuple.toArray()));
+        }
+        return result;
+    }
+
+    // 첫 행의 메타데이터로 위치를 맞춘다. 쿼리마다 새로 만들어 쓴다
+    public RowMapper<T> rowMapper() {
+        return new RowMapper<>() {
+            private Binder<T> binder;
+            private Object[] row;
+
+            @Override
+            public T mapRow(java.sql.ResultSet rs, int rowNum) throws java.sql.SQLException {
+                if ( binder == null ) {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    List<String> labels = new ArrayList<>(metaData.getColumnCount());
+                    for ( int i = 1; i <= metaData.getColumnCount(); ++i ) {
+                        labels.add(metaData.getColumnLabel(i));
+                    }
+                    binder = binder(labels);
+                    row = new Object[labels.size()];
+                }
+                for ( int i = 0; i < row.length; ++i ) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                return binder.bind(row);
+            }
+        };
+    }
+
+    private static String key(String label) {
+        StringBuilder key = new StringBuilder(label.length());
+        for ( int i = 0; i < label.length(); ++i ) {
+            char c = label.charAt(i);
+            if ( c != '_' && c != '.' ) {
+                key.append(Character.toLowerCase(c));
+            }
+        }
+        return key.toString();
+    }
+
+    public static final class Binder<T> {
+
+        private final Class<T> type;
+        private final Node root;
+        private final int[] columns;
+
+        private Binder(Class<T> type, Node root, int[] columns) {
+            this.type = type;
+            this.root = root;
+            this.columns = columns;
+        }
+
+        public T bind(Object[] row) {
+            try {
+                return type.cast(root.create(row, columns, 0, true));
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("cannot fill " + type.getName(), e);
+            }
+        }
+
+    }
+
+    private static final class Node {
+
+        private final MethodHandle constructor;
+        private final List<Property> properties = new ArrayList<>();
+        private final int leafCount;
+
+        private Node(Class<?> type) {
+            if ( !type.isInterface() ) {
+                throw new IllegalArgumentException(type.getName() + " is not a projection interface");
+            }
+            List<Method> getters = Arrays.stream(type.getMethods())
+                    .filter(method -> !method.isDefault() && !Modifier.isStatic(method.getModifiers()))
+                    .sorted(Comparator.comparing(Method::getName))
+                    .toList();
+
+            DynamicType.Builder<Object> builder = new ByteBuddy()
+                    .subclass(Object.class)
+                    .implement(type)
+                    .name(type.getName() + "$Generated");
+            for ( Method getter : getters ) {
+                if ( getter.getParameterCount() != 0 || getter.isAnnotationPresent(Value.class) ) {
+                    throw new IllegalArgumentException("open projection method is not supported: " + getter);
+                }
+                String name = propertyName(getter);
+                builder = builder.defineField(name, getter.getReturnType(), Visibility.PUBLIC)
+                        .method(ElementMatchers.is(getter))
+                        .intercept(FieldAccessor.ofField(name));
+            }
+            Class<?> generated = builder.make()
+                    .load(type.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                    .getLoaded();
+
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                this.constructor = lookup.findConstructor(generated, MethodType.methodType(void.class)).asType(CONSTRUCTOR_TYPE);
+                int leaves = 0;
+                for ( Method getter : getters ) {
+                    Class<?> valueType = getter.getReturnType();
+                    Node nested = isNested(valueType) ? new Node(valueType) : null;
+                    MethodHandle setter = lookup.findSetter(generated, propertyName(getter), valueType).asType(SETTER_TYPE);
+                    properties.add(new Property(propertyName(getter), valueType, setter, nested));
+                    leaves += nested == null ? 1 : nested.leafCount;
+                }
+                this.leafCount = leaves;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void collectPaths(String prefix, List<String> paths) {
+            for ( Property property : properties ) {
+                if ( property.nested() == null ) {
+                    paths.add(prefix + property.name());
+                } else {
+                    property.nested().collectPaths(prefix + property.name() + ".", paths);
+                }
+            }
+        }
+
+        private Object create(Object[] row, int[] columns, int offset, boolean always) throws Throwable {
+            Object instance = (Object) constructor.invokeExact();
+            boolean any = false;
+            for ( Property property : properties ) {
+                Object value;
+                if ( property.nested() != null ) {
+                    value = property.nested().create(row, columns, offset, false);
+                    offset += property.nested().leafCount;
+                } else {
+                    int column = columns[offset++];
+                    value = column < 0 ? null : convert(row[column], property.type());
+                }
+                if ( value != null ) {
+                    property.setter().invokeExact(instance, value);
+                    any = true;
+                }
+            }
+            return any || always ? instance : null;
+        }
+
+        private static String propertyName(Method getter) {
+            String name = getter.getName();
+            if ( name.startsWith("get") && name.length() > 3 ) {
+                return Introspector.decapitalize(name.substring(3));
+            }
+            if ( name.startsWith("is") && name.length() > 2 ) {
+                return Introspector.decapitalize(name.substring(2));
+            }
+            return name;
+        }
+
+        private static boolean isNested(Class<?> type) {
+            return type.isInterface() && !type.getName().startsWith("java.");
+        }
+
+    }
+
+    private record Property(String name, Class<?> type, MethodHandle setter, Node nested) {
+    }
+
+    // 드라이버가 돌려준 숫자 타입이 프로퍼티와 다를 때만 변환
+    private static Object convert(Object value, Class<?> type) {
+        if ( !(value instanceof Number number) || type.isInstance(value) ) {
+            return value;
+        }
+        if ( type == Long.class || type == long.class ) {
+            return number.longValue();
+        }
+        if ( type == Integer.class || type == int.class ) {
+            return number.intValue();
+        }
+        if ( type == Double.class || type == double.class ) {
+            return number.doubleValue();
+        }
+        if ( type == BigDecimal.class ) {
+            return new BigDecimal(number.toString());
+        }
+        if ( type == BigInteger.class ) {
+            return BigInteger.valueOf(number.longValue());
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,125 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * 큰 IN 리스트를 chunkSize(2의 거듭제곱) 단위 쿼리로 나눠 실행하고 결과를 합친다.
+ * 마지막 청크는 hibernate.query.in_clause_parameter_padding 으로 2의 거듭제곱 길이까지 채워지므로
+ * 리스트 길이와 상관없이 SQL 문자열 종류가 몇 개로 고정되고 드라이버 파라미터 한도도 넘지 않는다.
+ * 호출 스레드에 영속성 컨텍스트(트랜잭션, OSIV)가 있으면 같은 컨텍스트에서 순서대로,
+ * 없으면 청크를 parallelism 개 묶음으로 나눠 repositoryExecutor 의 읽기 전용 트랜잭션에서 동시에 실행한다.
+ * 실행기가 묶음을 거절하면 그 묶음은 호출 스레드에서 실행하고, 실패하면 이미 제출한 묶음을 취소한다.
+ */
+@Component
+public class InListQuery {
+
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate readOnly;
+    private final AsyncTaskExecutor executor;
+    private final int chunkSize;
+    private final int parallelism;
+
+    public InListQuery(EntityManagerFactory emf, PlatformTransactionManager transactionManager,
+                       @Qualifier("repositoryExecutor") AsyncTaskExecutor executor,
+                       @Value("${app.in-list.chunk-size:512}") int chunkSize,
+                       @Value("${app.in-list.parallelism:4}") int parallelism) {
+        if ( chunkSize <= 0 || Integer.bitCount(chunkSize) != 1 ) {
+            throw new IllegalArgumentException("app.in-list.chunk-size must be a power of two: " + chunkSize);
+        }
+        this.emf = emf;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    // chunkQuery 는 공유 EntityManager 로 한 청크를 조회한다. 중복 값은 한 번만 바인딩한다
+    public <V, T> List<T> execute(Collection<V> values, Function<List<V>, List<T>> chunkQuery) {
+        List<V> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        if ( distinct.isEmpty() ) {
+            return new ArrayList<>();
+        }
+        List<List<V>> chunks = new ArrayList<>();
+        for ( int i = 0; i < distinct.size(); i += chunkSize ) {
+            chunks.add(distinct.subList(i, Math.min(i + chunkSize, distinct.size())));
+        }
+        if ( chunks.size() == 1 || parallelism == 1 || TransactionSynchronizationManager.hasResource(emf) ) {
+            return run(chunks, chunkQuery);
+        }
+
+        int groups = Math.min(parallelism, chunks.size());
+        List<Future<List<T>>> futures = new ArrayList<>(groups - 1);
+        // 실행기 큐가 가득 차서 거절된 묶음은 호출 스레드에서 실행한다
+        List<List<List<V>>> rejected = new ArrayList<>();
+        List<T> result;
+        try {
+            for ( int g = 1; g < groups; ++g ) {
+                List<List<V>> group = group(chunks, g, groups);
+                try {
+                    futures.add(executor.submit(() -> readOnly.execute(status -> run(group, chunkQuery))));
+                } catch (TaskRejectedException e) {
+                    rejected.add(group);
+                }
+            }
+            // 첫 묶음은 호출 스레드에서
+            result = readOnly.execute(status -> run(group(chunks, 0, groups), chunkQuery));
+            for ( List<List<V>> group : rejected ) {
+                result.addAll(readOnly.execute(status -> run(group, chunkQuery)));
+            }
+        } catch (RuntimeException | Error e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        try {
+            for ( Future<List<T>> future : futures ) {
+                result.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("interrupted while waiting for IN-list chunks", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if ( e.getCause() instanceof RuntimeException runtime ) {
+                throw runtime;
+            }
+            throw new CompletionException(e.getCause());
+        }
+        return result;
+    }
+
+    private static <V, T> List<T> run(List<List<V>> chunks, Function<List<V>, List<T>> chunkQuery) {
+        List<T> result = new ArrayList<>();
+        for ( List<V> chunk : chunks ) {
+            result.addAll(chunkQuery.apply(chunk));
+        }
+        return result;
+    }
+
+    private static <V> List<List<V>> group(List<List<V>> chunks, int index, int groups) {
+        List<List<V>> group = new ArrayList<>();
+        for ( int i = index; i < chunks.size(); i += groups ) {
+            group.add(chunks.get(i));
+        }
+        return group;
+    }
+
+}
@@ -0,0 +1,49 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Objects;
+
+@Repository
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    // 이미 있는 id 는 건드리지 않으므로 createdDate 가 유지된다
+    private static final String UPSERT = "merge into item t" +
+            " using (select cast(? as varchar(255)) as id, cast(? as timestamp(6)) as created_date) s" +
+            " on t.id = s.id" +
+            " when not matched then insert (id, created_date) values (s.id, s.created_date)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    // persist/merge 판단을 위한 select 없이 한 번의 배치로 처리한다
+    @Override
+    @Transactional
+    public int upsertAll(Collection<Item> items) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(UPSERT, items, batchSize, (ps, item) -> {
+            ps.setString(1, Objects.requireNonNull(item.getId(), "Item id must be assigned"));
+            ps.setTimestamp(2, now);
+        });
+
+        int affected = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                affected += Math.max(count, 0);
+            }
+        }
+        return affected;
+    }
+
+}
@@ -0,0 +1,56 @@
+package study.datajpa.repository;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 리포지토리의 @Modifying @Query JPQL update 를 {@link MemberBulkUpdates#capture} 로 감싸 실행한다.
+ * 트랜잭션 인터셉터 안쪽에서 동작하므로 대상 행 조회와 update 가 같은 트랜잭션에서 실행된다.
+ */
+public class MemberBulkUpdateInterceptor implements MethodInterceptor {
+
+    private final Supplier<MemberBulkUpdates> bulkUpdates;
+
+    public MemberBulkUpdateInterceptor(Supplier<MemberBulkUpdates> bulkUpdates) {
+        this.bulkUpdates = bulkUpdates;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        Query query = method.getAnnotation(Query.class);
+        // SpEL 이 들어간 JPQL 은 Spring Data 가 바꾼 뒤에야 실행할 수 있다
+        if ( query != null && !query.nativeQuery() && method.isAnnotationPresent(Modifying.class)
+                && !query.value().contains("#{") ) {
+            try (MemberBulkUpdates.Scope ignored = bulkUpdates.get()
+                    .capture(query.value(), parameters(method, invocation.getArguments()))) {
+                return invocation.proceed();
+            }
+        }
+        return invocation.proceed();
+    }
+
+    private static Map<String, Object> parameters(Method method, Object[] arguments) {
+        Map<String, Object> parameters = new HashMap<>();
+        Parameter[] declared = method.getParameters();
+        for ( int i = 0; i < declared.length; ++i ) {
+            Param param = declared[i].getAnnotation(Param.class);
+            if ( param != null ) {
+                parameters.put(param.value(), arguments[i]);
+            } else if ( declared[i].isNamePresent() ) {
+                parameters.put(declared[i].getName(), arguments[i]);
+            }
+        }
+        return parameters;
+    }
+
+}
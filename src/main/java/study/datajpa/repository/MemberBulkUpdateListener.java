@@ -0,0 +1,17 @@
+package study.datajpa.repository;
+
+import java.util.List;
+
+/**
+ * 회원 JPQL 벌크 update 가 실행되기 직전, 같은 트랜잭션에서 대상 행을 바뀌기 전/후 값으로 받는다.
+ * {@link MemberBulkUpdates} 가 대상 행을 잠그며 한 번 훑어 일정 개수씩 나눠 알린다.
+ */
+public interface MemberBulkUpdateListener {
+
+    void onRows(List<Row> rows);
+
+    // 팀은 벌크 update 로 바꿀 수 없는 경우만 알리므로 하나다
+    record Row(long id, String username, Long teamId, int oldAge, int newAge) {
+    }
+
+}
@@ -0,0 +1,142 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Parameter;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 회원 JPQL 벌크 update 의 대상 행을 실행 직전에 {@link MemberBulkUpdateListener} 에 알린다.
+ * 같은 where 조건으로 대상 행을 잠그며 스트리밍으로 읽고, set 절의 식을 그대로 select 해 update 뒤의 값도 함께 구한다.
+ * 행은 {@link #CHUNK} 개씩 나눠 알리므로 대상이 테이블 전체여도 id 목록을 메모리에 모으지 않는다.
+ * 알린 update 가 실행되는 동안 {@link #isCaptured()} 가 true 이므로 TableWriteListener 는 그 update 를 다시 다루지 않는다.
+ * 해석할 수 없는 JPQL(위치 파라미터, 팀을 바꾸는 set 등)은 알리지 않고, 리스너는 벌크 쓰기로 처리한다.
+ */
+@Component
+public class MemberBulkUpdates {
+
+    static final int CHUNK = 500;
+
+    // update Member <별칭> set <대입> [where <조건>]
+    private static final Pattern UPDATE = Pattern.compile(
+            "^\\s*update\\s+Member\\s+(?:as\\s+)?(\\w+)\\s+set\\s+(.*?)(?:\\s+where\\s+(.*))?$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ASSIGNMENT = Pattern.compile("^\\s*(?:(\\w+)\\.)?(\\w+)\\s*=\\s*(.+?)\\s*$",
+            Pattern.DOTALL);
+    private static final ThreadLocal<Boolean> CAPTURED = new ThreadLocal<>();
+    private static final Scope NONE = () -> {
+    };
+
+    @PersistenceContext
+    private EntityManager em;
+    private final ObjectProvider<MemberBulkUpdateListener> listeners;
+
+    public MemberBulkUpdates(ObjectProvider<MemberBulkUpdateListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    // 현재 스레드에서 실행 중인 벌크 update 의 대상 행을 이미 알렸는지
+    public static boolean isCaptured() {
+        return CAPTURED.get() != null;
+    }
+
+    /**
+     * 트랜잭션 안에서 update 를 실행하기 직전에 부르고, 돌려받은 Scope 를 닫기 전에 같은 JPQL 과 파라미터로 update 를 실행한다.
+     */
+    public Scope capture(String updateJpql, Map<String, ?> parameters) {
+        Matcher matcher = UPDATE.matcher(updateJpql);
+        if ( !matcher.matches() ) {
+            return NONE;
+        }
+        String alias = matcher.group(1);
+        String username = alias + ".username";
+        String age = alias + ".age";
+        for ( String assignment : splitTopLevel(matcher.group(2)) ) {
+            Matcher assigned = ASSIGNMENT.matcher(assignment);
+            if ( !assigned.matches() || (assigned.group(1) != null && !assigned.group(1).equals(alias)) ) {
+                return NONE;
+            }
+            switch ( assigned.group(2) ) {
+                case "username" -> username = assigned.group(3);
+                case "age" -> age = assigned.group(3);
+                // 팀이 바뀌면 바뀌기 전/후 팀을 모두 알려야 하는데 set 식으로는 팀 id 를 구할 수 없다
+                case "team", "id" -> {
+                    return NONE;
+                }
+                default -> {
+                }
+            }
+        }
+        // team.id 는 외래 키 컬럼을 그대로 읽으므로 조인 없이 팀이 없는 회원도 나온다
+        TypedQuery<Object[]> query = em.createQuery("select " + alias + ".id, " + username + ", " + alias + ".team.id, "
+                + alias + ".age, " + age + " from Member " + alias
+                + (matcher.group(3) == null ? "" : " where " + matcher.group(3)), Object[].class);
+        for ( Parameter<?> parameter : query.getParameters() ) {
+            if ( parameter.getName() == null || !parameters.containsKey(parameter.getName()) ) {
+                return NONE;
+            }
+            query.setParameter(parameter.getName(), parameters.get(parameter.getName()));
+        }
+        List<MemberBulkUpdateListener> targets = listeners.orderedStream().toList();
+        try (Stream<Object[]> rows = query.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, CHUNK)
+                .getResultStream()) {
+            List<MemberBulkUpdateListener.Row> chunk = new ArrayList<>(CHUNK);
+            rows.forEach(row -> {
+                chunk.add(new MemberBulkUpdateListener.Row((Long) row[0], (String) row[1], (Long) row[2],
+                        ((Number) row[3]).intValue(), ((Number) row[4]).intValue()));
+                if ( chunk.size() == CHUNK ) {
+                    targets.forEach(listener -> listener.onRows(chunk));
+                    chunk.clear();
+                }
+            });
+            if ( !chunk.isEmpty() ) {
+                targets.forEach(listener -> listener.onRows(chunk));
+            }
+        }
+        CAPTURED.set(Boolean.TRUE);
+        return CAPTURED::remove;
+    }
+
+    // 괄호와 문자열 밖의 쉼표로 set 절의 대입을 나눈다
+    private static List<String> splitTopLevel(String assignments) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean quoted = false;
+        int start = 0;
+        for ( int i = 0; i < assignments.length(); ++i ) {
+            char c = assignments.charAt(i);
+            if ( c == '\'' ) {
+                quoted = !quoted;
+            } else if ( !quoted && c == '(' ) {
+                ++depth;
+            } else if ( !quoted && c == ')' ) {
+                --depth;
+            } else if ( !quoted && depth == 0 && c == ',' ) {
+                parts.add(assignments.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(assignments.substring(start));
+        return parts;
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+}
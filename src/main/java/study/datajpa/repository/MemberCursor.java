@@ -0,0 +1,49 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+@Getter
+public class MemberCursor {
+
+    private static final String PREFIX = "m:";
+    private static final MemberCursor FIRST = new MemberCursor(0L);
+
+    private final Long lastId;
+
+    private MemberCursor(Long lastId) {
+        this.lastId = lastId;
+    }
+
+    public static MemberCursor first() {
+        return FIRST;
+    }
+
+    public static MemberCursor after(Long lastId) {
+        return new MemberCursor(lastId);
+    }
+
+    public static MemberCursor decode(String token) {
+        if ( token == null || token.isBlank() ) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if ( !raw.startsWith(PREFIX) ) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new MemberCursor(Long.parseLong(raw.substring(PREFIX.length())));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+}
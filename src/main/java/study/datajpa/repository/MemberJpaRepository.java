@@ -2,17 +2,23 @@ package study.datajpa.repository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
+@RequiredArgsConstructor
 public class MemberJpaRepository {
 
     @PersistenceContext
     private EntityManager em;
+    private final ChunkedBulkUpdater chunkedBulkUpdater;
+    private final MemberBulkUpdates memberBulkUpdates;
 
     public Member save(Member member) {
         em.persist(member);
@@ -55,6 +61,21 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
+    public List<Member> findByPageAfter(int age, String lastUsername, Long lastId, int limit) {
+        String jpql = "select m from Member m where m.age = :age";
+        if ( lastId != null ) {
+            jpql += " and (m.username < :username or (m.username = :username and m.id < :id))";
+        }
+        TypedQuery<Member> query = em.createQuery(jpql + " order by m.username desc, m.id desc", Member.class)
+                .setParameter("age", age)
+                .setMaxResults(limit);
+        if ( lastId != null ) {
+            query.setParameter("username", lastUsername)
+                    .setParameter("id", lastId);
+        }
+        return query.getResultList();
+    }
+
     public long totalCount(int age) {
         return em.createQuery("select count(m) from Member m where m.age = :age", long.class)
                 .setParameter("age", age)
@@ -62,10 +83,18 @@ public class MemberJpaRepository {
     }
 
     public int bulkAgePlus(int age) {
-        return em.createQuery(
-                "update Member m set m.age = m.age + 1 where m.age >= : age"
-        )
-                .setParameter("age", age)
-                .executeUpdate();
+        String jpql = "update Member m set m.age = m.age + 1 where m.age >= : age";
+        try (MemberBulkUpdates.Scope ignored = memberBulkUpdates.capture(jpql, Map.of("age", age))) {
+            return em.createQuery(jpql)
+                    .setParameter("age", age)
+                    .executeUpdate();
+        }
+    }
+
+    public BulkUpdateResult bulkAgePlusChunked(String jobName, int age, int chunkSize, int parallelism,
+                                               BulkUpdateListener listener) {
+        return chunkedBulkUpdater.execute(jobName, Member.class,
+                "update Member m set m.age = m.age + 1 where m.age >= :age and m.id >= :fromId and m.id < :toId",
+                Map.of("age", age), chunkSize, parallelism, listener);
     }
 }
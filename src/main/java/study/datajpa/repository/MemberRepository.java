@@ -8,20 +8,27 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+// 선언한 조회 메서드는 읽기 전용 트랜잭션으로 (라우팅 사용 시 replica)
+@Transactional(readOnly = true)
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
     List<Member> findTop3HelloBy();
 
-    List<Member> findByUsername(@Param("username") String username);
+    List<Member> findByUsername(@Param("username") String username); // username 캐시를 거치는 메서드는 MemberRepositoryImpl
 
     @Query("select m from Member m where m.username = :username and m.age = :age")
     List<Member> findUser(@Param("username") String username, @Param("age") int age);
@@ -39,11 +46,14 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     Member findMemberByUsername(String username); // 단건
     Optional<Member> findOptionalByUsername(String username); // 단건-Optional
 
+    List<Member> findByLastModifiedDateAfter(LocalDateTime since); // 변경분 조회
+
     @Query(value = "select m from Member m left join m.team t"
 //            , countQuery = "select count(m.username) from Member m"
     )
     Page<Member> findByAge(int age, Pageable pageable);
 
+    @Transactional
     @Modifying(clearAutomatically = true)
     @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
@@ -68,18 +78,33 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     )
     Member findReadOnlyByUsername(String username);
 
+    @Transactional
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
 
-    <T> List<T> findProjectionsByUsername(@Param("username") String username, Class<T> type);
+    // repositoryExecutor 스레드의 별도 읽기 전용 트랜잭션에서 실행되므로 지연 로딩은 쓸 수 없다
+    @Async("repositoryExecutor")
+    CompletableFuture<List<Member>> findAsyncByUsername(String username);
+
+    @Async("repositoryExecutor")
+    CompletableFuture<Page<Member>> findAsyncByAge(int age, Pageable pageable);
+
+    // 다른 트랜잭션이 잠근 행은 건너뛴다 (lock timeout -2 = SKIP LOCKED)
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select m from Member m order by m.id")
+    List<Member> findForClaim(Pageable pageable);
+
+    // 호출한 트랜잭션이 끝날 때까지 잠금이 유지되므로 트랜잭션 안에서만 쓴다
+    @Transactional(propagation = Propagation.MANDATORY)
+    default List<Member> claimBatch(int n) {
+        return findForClaim(PageRequest.of(0, n));
+    }
 
     @Query(value = "select * from member where username = ?", nativeQuery = true)
     Member findByNativeQuery(String username);
 
-    @Query(value = "select m.member_id as id, m.username, t.name as teamName" +
-            " from member m left join team t",
-            countQuery = "select count(*) from member",
-            nativeQuery = true)
-    Page<MemberProjection> findByNativeProjection(Pageable pageable);
+    Slice<Member> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable); // keyset
 
 }
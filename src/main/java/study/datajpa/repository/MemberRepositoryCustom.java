@@ -1,11 +1,45 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
 
     List<Member> findMemberCustom();
 
+    Page<Member> findAllPage(Pageable pageable, CountStrategy countStrategy);
+
+    Page<Member> findPageByAge(int age, Pageable pageable, CountStrategy countStrategy);
+
+    Page<MemberDto> findMemberDtoPage(Pageable pageable, CountStrategy countStrategy);
+
+    Slice<MemberDto> findMemberDtoAfter(Long lastId, int size);
+
+    Stream<MemberDto> streamMemberDto(int fetchSize);
+
+    Page<MemberProjection> findByNativeProjection(Pageable pageable);
+
+    <T> List<T> findProjectionsByUsername(String username, Class<T> type);
+
+    List<Member> findByNamesChunked(Collection<String> names);
+
+    List<Member> findByUsername(String username);
+
+    Member findMemberByUsername(String username);
+
+    Optional<Member> findOptionalByUsername(String username);
+
+    int saveAllBatched(Iterable<Member> members, int batchSize);
+
+    BulkUpdateResult bulkAgePlusChunked(String jobName, int age, int chunkSize, int parallelism,
+                                        BulkUpdateListener listener);
+
 }
@@ -1,17 +1,58 @@
 package study.datajpa.repository;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final String MEMBER_TABLE = "member";
+    private static final String MEMBER_DTO_SELECT =
+            "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t";
+
+    // 프로젝션 벤치마크가 같은 SQL 로 프록시 경로를 비교한다
+    public static final String MEMBER_PROJECTION_SELECT = "select m.member_id as id, m.username, t.name as teamName"
+            + " from member m left join team t on m.team_id = t.team_id order by m.member_id";
+    private static final GeneratedProjection<MemberProjection> MEMBER_PROJECTION =
+            GeneratedProjection.of(MemberProjection.class);
+
     private final EntityManager em;
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+    private final CountCache countCache;
+    private final ChunkedBulkUpdater chunkedBulkUpdater;
+    private final InListQuery inListQuery;
+    private final MemberUsernameCache usernameCache;
 
     @Override
     public List<Member> findMemberCustom() {
@@ -19,4 +60,181 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .getResultList();
     }
 
+    @Override
+    public Page<Member> findAllPage(Pageable pageable, CountStrategy countStrategy) {
+        List<Member> content = pagedQuery("select m from Member m", Member.class, pageable)
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> memberCount(countStrategy));
+    }
+
+    @Override
+    public Page<Member> findPageByAge(int age, Pageable pageable, CountStrategy countStrategy) {
+        List<Member> content = pagedQuery("select m from Member m where m.age = :age", Member.class, pageable)
+                .setParameter("age", age)
+                .getResultList();
+
+        LongSupplier exact = () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                .setParameter("age", age)
+                .getSingleResult();
+        return PageableExecutionUtils.getPage(content, pageable, () -> countStrategy == CountStrategy.EXACT
+                ? exact.getAsLong()
+                : countCache.get(MEMBER_TABLE, "age=" + age, exact));
+    }
+
+    @Override
+    public Page<MemberDto> findMemberDtoPage(Pageable pageable, CountStrategy countStrategy) {
+        List<MemberDto> content = pagedQuery(MEMBER_DTO_SELECT, MemberDto.class, pageable)
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> memberCount(countStrategy));
+    }
+
+    @Override
+    public Slice<MemberDto> findMemberDtoAfter(Long lastId, int size) {
+        List<MemberDto> content = em.createQuery(MEMBER_DTO_SELECT + " where m.id > :lastId order by m.id", MemberDto.class)
+                .setParameter("lastId", lastId)
+                .setMaxResults(size + 1)
+                .getResultList();
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, PageRequest.of(0, size), hasNext);
+    }
+
+    // 생성자 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않는다
+    @Override
+    public Stream<MemberDto> streamMemberDto(int fetchSize) {
+        return em.createQuery(MEMBER_DTO_SELECT + " order by m.id", MemberDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    // 네이티브 조회 결과를 Spring Data 프록시 대신 생성된 클래스로 채운다
+    @Override
+    public Page<MemberProjection> findByNativeProjection(Pageable pageable) {
+        Query query = em.createNativeQuery(MEMBER_PROJECTION_SELECT);
+        if ( pageable.isPaged() ) {
+            query.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        // 여러 컬럼을 select 하는 네이티브 쿼리는 행마다 Object[] 를 돌려준다
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = (List<Object[]>) query.getResultList();
+        GeneratedProjection.Binder<MemberProjection> binder = MEMBER_PROJECTION.binder(List.of("id", "username", "teamName"));
+        List<MemberProjection> content = rows.stream().map(binder::bind).toList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> memberCount(CountStrategy.EXACT));
+    }
+
+    // 닫힌 인터페이스는 필요한 컬럼만 join 으로 읽고, DTO 는 생성자 표현식, 엔티티 타입은 엔티티 그대로
+    // @Value 열린 프로젝션은 Spring Data 와 같이 엔티티를 읽어 프록시로 감싼다
+    @Override
+    public <T> List<T> findProjectionsByUsername(String username, Class<T> type) {
+        if ( GeneratedProjection.isClosed(type) ) {
+            ProjectionQuery<T> projectionQuery = ProjectionQuery.of(em.getMetamodel(), Member.class, "m", type);
+            return projectionQuery.getResultList(
+                    em.createQuery(projectionQuery.getSelect() + " where m.username = :username", Tuple.class)
+                            .setParameter("username", username));
+        }
+        if ( type.isInterface() ) {
+            return findProjectionsByUsername(username, Member.class).stream()
+                    .map(member -> projectionFactory.createProjection(type, member))
+                    .toList();
+        }
+        String selection = type.isAssignableFrom(Member.class) ? "m" : ProjectionQuery.constructorExpression(type, "m");
+        return em.createQuery("select " + selection + " from Member m where m.username = :username", type)
+                .setParameter("username", username)
+                .getResultList();
+    }
+
+    // 트랜잭션 밖에서 호출하면 청크를 동시에 조회하므로 결과 엔티티는 준영속 상태다
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Member> findByNamesChunked(Collection<String> names) {
+        return inListQuery.execute(names, chunk -> em.createQuery("select m from Member m where m.username in :names", Member.class)
+                .setParameter("names", chunk)
+                .getResultList());
+    }
+
+    // username -> id 는 MemberUsernameCache, 엔티티는 2차 캐시에서
+    @Override
+    public List<Member> findByUsername(String username) {
+        if ( !usernameCache.isUsable() ) {
+            return em.createQuery("select m from Member m where m.username = :username order by m.id", Member.class)
+                    .setParameter("username", username)
+                    .getResultList();
+        }
+        List<Long> ids = usernameCache.get(username, key -> em.createQuery(
+                        "select m.id from Member m where m.username = :username order by m.id", Long.class)
+                .setParameter("username", key)
+                .getResultList());
+        // multiLoad 는 CacheMode 를 지정해야 2차 캐시를 보고, id 가 하나면 캐시를 보지 않고 바로 조회한다
+        if ( ids.size() == 1 ) {
+            Member member = em.find(Member.class, ids.get(0));
+            return member == null ? List.of() : List.of(member);
+        }
+        return em.unwrap(Session.class).byMultipleIds(Member.class)
+                .with(CacheMode.NORMAL)
+                .enableSessionCheck(true)
+                .multiLoad(ids).stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public Member findMemberByUsername(String username) {
+        return findOptionalByUsername(username).orElse(null);
+    }
+
+    @Override
+    public Optional<Member> findOptionalByUsername(String username) {
+        List<Member> members = findByUsername(username);
+        if ( members.size() > 1 ) {
+            throw new IncorrectResultSizeDataAccessException(1, members.size());
+        }
+        return members.stream().findFirst();
+    }
+
+    // 같은 트랜잭션의 영속성 컨텍스트도 함께 비워지므로 대량 적재 전용으로 사용
+    @Override
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members, int batchSize) {
+        return BatchInserts.persistAll(em, members, batchSize);
+    }
+
+    // 청크마다 별도 트랜잭션으로 커밋된다. 트랜잭션 안에서 호출하면 시작하지 않는다
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkUpdateResult bulkAgePlusChunked(String jobName, int age, int chunkSize, int parallelism,
+                                               BulkUpdateListener listener) {
+        return chunkedBulkUpdater.execute(jobName, Member.class,
+                "update Member m set m.age = m.age + 1 where m.age >= :age and m.id >= :fromId and m.id < :toId",
+                Map.of("age", age), chunkSize, parallelism, listener);
+    }
+
+    private long memberCount(CountStrategy countStrategy) {
+        LongSupplier exact = () -> em.createQuery("select count(m) from Member m", Long.class)
+                .getSingleResult();
+        return switch (countStrategy) {
+            case EXACT -> exact.getAsLong();
+            case CACHED -> countCache.get(MEMBER_TABLE, "all", exact);
+            case ESTIMATED -> estimatedCount(MEMBER_TABLE);
+        };
+    }
+
+    private <T> TypedQuery<T> pagedQuery(String jpql, Class<T> type, Pageable pageable) {
+        TypedQuery<T> query = em.createQuery(QueryUtils.applySorting(jpql, pageable.getSort(), "m"), type);
+        if ( pageable.isPaged() ) {
+            query.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        return query;
+    }
+
+    private long estimatedCount(String table) {
+        Object estimate = em.createNativeQuery(
+                "select row_count_estimate from information_schema.tables" +
+                        " where table_schema = schema() and lower(table_name) = :table")
+                .setParameter("table", table)
+                .getSingleResult();
+        return ((Number) estimate).longValue();
+    }
+
 }
@@ -0,0 +1,159 @@
+package study.datajpa.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.config.TableWriteListener;
+import study.datajpa.config.TableWrites;
+import study.datajpa.entity.Member;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * username -> 회원 id 목록 캐시. 엔티티 자체는 Member 2차 캐시에서 읽는다.
+ * 같은 username 의 동시 미스는 Caffeine 이 한 번의 로딩으로 합친다.
+ * 엔티티 insert/update/delete 는 Hibernate 이벤트로 해당 username 만, JPQL/네이티브 벌크 연산처럼
+ * 기본키 조건이 아닌 member 쓰기는 {@link TableWriteListener} 로 전체를 비운다.
+ * 커밋 전에 다른 트랜잭션이 옛 값을 다시 올릴 수 있으므로 flush 시점과 트랜잭션 종료 후 두 번 비운다.
+ */
+@Component
+public class MemberUsernameCache implements TableWriteListener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    public static final String NAME = "memberUsername";
+
+    private final Cache<String, List<Long>> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final EntityManagerFactory emf;
+
+    public MemberUsernameCache(@Value("${app.username-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${app.username-cache.ttl:10m}") Duration ttl,
+                               MeterRegistry meterRegistry, EntityManagerFactory emf) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.emf = emf;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", NAME)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    // 읽기-쓰기 트랜잭션 안에서는 아직 커밋되지 않은 변경을 봐야 하므로 쓰지 않는다
+    public boolean isUsable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    public List<Long> get(String username, Function<String, List<Long>> loader) {
+        long before = generation.get();
+        List<Long> ids = cache.get(username, loader);
+        // 로딩 중에 전체 무효화가 지나갔으면 남기지 않는다
+        if ( generation.get() != before ) {
+            cache.invalidate(username);
+        }
+        return ids;
+    }
+
+    public Cache<String, List<Long>> getCache() {
+        return cache;
+    }
+
+    public void invalidate(String username) {
+        if ( username != null ) {
+            cache.invalidate(username);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onWrite(String table, String sql) {
+        if ( !"member".equals(table) || !TableWrites.isBulkWrite(sql, "member_id") ) {
+            return;
+        }
+        invalidateAll();
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateAll();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if ( event.getEntity() instanceof Member member ) {
+            evict(event.getSession(), member.getUsername(), null);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if ( event.getEntity() instanceof Member member ) {
+            Object[] oldState = event.getOldState();
+            if ( oldState == null ) {
+                // 이전 값을 모르면 (detached merge 등) 전체를 비운다
+                invalidateAll();
+                event.getSession().getActionQueue().registerProcess((success, session) -> invalidateAll());
+                return;
+            }
+            int index = event.getPersister().getEntityMetamodel().getPropertyIndex("username");
+            evict(event.getSession(), member.getUsername(), (String) oldState[index]);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if ( event.getEntity() instanceof Member member ) {
+            evict(event.getSession(), member.getUsername(), null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void evict(EventSource session, String username, String previousUsername) {
+        invalidate(username);
+        invalidate(previousUsername);
+        session.getActionQueue().registerProcess((success, s) -> {
+            invalidate(username);
+            invalidate(previousUsername);
+        });
+    }
+
+}
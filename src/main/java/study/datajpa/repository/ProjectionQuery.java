@@ -0,0 +1,123 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 닫힌 인터페이스 프로젝션이 읽는 값 경로만 select 하는 JPQL 을 만든다.
+ * 중첩 프로젝션(getTeam().getName())은 연관관계를 left join 해 필요한 컬럼만 읽으므로
+ * 연관 엔티티를 통째로 읽거나 지연 로딩하지 않고 쿼리 한 번으로 끝난다.
+ * 결과 행은 {@link GeneratedProjection} 으로 채우며 영속성 컨텍스트에는 아무것도 올라가지 않는다.
+ */
+public final class ProjectionQuery<T> {
+
+    private static final Map<Key, ProjectionQuery<?>> CACHE = new ConcurrentHashMap<>();
+
+    private final String select;
+    private final GeneratedProjection.Binder<T> binder;
+
+    private ProjectionQuery(Metamodel metamodel, Class<?> entityClass, String alias, Class<T> type) {
+        GeneratedProjection<T> projection = GeneratedProjection.of(type);
+        EntityType<?> entity = metamodel.entity(entityClass);
+
+        // 연관 경로("team") -> join 별칭("m_team")
+        Map<String, String> joins = new LinkedHashMap<>();
+        List<String> joinClauses = new ArrayList<>();
+        List<String> selections = new ArrayList<>();
+        for ( String path : projection.getPaths() ) {
+            String[] segments = path.split("\\.");
+            ManagedType<?> managed = entity;
+            String current = alias;
+            for ( int i = 0; i < segments.length - 1; ++i ) {
+                SingularAttribute<?, ?> attribute = singular(managed, segments[i], path);
+                String joinPath = String.join(".", Arrays.copyOf(segments, i + 1));
+                switch (attribute.getPersistentAttributeType()) {
+                    case MANY_TO_ONE, ONE_TO_ONE -> {
+                        String joinAlias = joins.get(joinPath);
+                        if ( joinAlias == null ) {
+                            joinAlias = alias + "_" + joinPath.replace('.', '_');
+                            joins.put(joinPath, joinAlias);
+                            joinClauses.add(" left join " + current + "." + segments[i] + " " + joinAlias);
+                        }
+                        current = joinAlias;
+                    }
+                    case EMBEDDED -> current = current + "." + segments[i];
+                    default -> throw new IllegalArgumentException(path + " cannot be read from " + entity.getName());
+                }
+                managed = metamodel.managedType(attribute.getJavaType());
+            }
+            selections.add(current + "." + singular(managed, segments[segments.length - 1], path).getName());
+        }
+
+        this.select = "select " + String.join(", ", selections)
+                + " from " + entity.getName() + " " + alias + String.join("", joinClauses);
+        this.binder = projection.binder(projection.getPaths());
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ProjectionQuery<T> of(Metamodel metamodel, Class<?> entityClass, String alias, Class<T> type) {
+        return (ProjectionQuery<T>) CACHE.computeIfAbsent(new Key(entityClass, alias, type),
+                key -> new ProjectionQuery<>(metamodel, entityClass, alias, type));
+    }
+
+    // where, order by 를 이어 붙여 쓴다
+    public String getSelect() {
+        return select;
+    }
+
+    public List<T> getResultList(TypedQuery<Tuple> query) {
+        List<Tuple> tuples = query.getResultList();
+        List<T> result = new ArrayList<>(tuples.size());
+        for ( Tuple tuple : tuples ) {
+            result.add(binder.bind(tuple.toArray()));
+        }
+        return result;
+    }
+
+    // DTO 는 유일한 생성자의 파라미터 이름을 엔티티 속성으로 보고 생성자 표현식을 만든다 (-parameters 필요)
+    public static String constructorExpression(Class<?> dtoType, String alias) {
+        Constructor<?>[] constructors = dtoType.getConstructors();
+        if ( constructors.length != 1 ) {
+            throw new IllegalArgumentException(dtoType.getName() + " must declare exactly one public constructor");
+        }
+        Parameter[] parameters = constructors[0].getParameters();
+        if ( parameters.length > 0 && !parameters[0].isNamePresent() ) {
+            throw new IllegalStateException("constructor parameter names of " + dtoType.getName() + " are not available");
+        }
+        return Arrays.stream(parameters)
+                .map(parameter -> alias + "." + parameter.getName())
+                .collect(Collectors.joining(", ", "new " + dtoType.getName() + "(", ")"));
+    }
+
+    private static SingularAttribute<?, ?> singular(ManagedType<?> managed, String name, String path) {
+        Attribute<?, ?> attribute;
+        try {
+            attribute = managed.getAttribute(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(path + " has no matching attribute " + name, e);
+        }
+        if ( !(attribute instanceof SingularAttribute<?, ?> singular) ) {
+            throw new IllegalArgumentException(path + " navigates collection attribute " + name);
+        }
+        return singular;
+    }
+
+    private record Key(Class<?> entityClass, String alias, Class<?> type) {
+    }
+
+}
@@ -3,7 +3,10 @@ package study.datajpa.repository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.entity.TeamMemberSummary;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,6 +22,11 @@ public class TeamJpaRepository {
         return team;
     }
 
+    @Transactional
+    public int saveAllBatched(Iterable<Team> teams, int batchSize) {
+        return BatchInserts.persistAll(em, teams, batchSize);
+    }
+
     public void delete(Team team) {
         em.remove(team);
     }
@@ -39,4 +47,39 @@ public class TeamJpaRepository {
 
     }
 
+    // Team.members 를 초기화하지 않고 회원 수/소속 여부를 확인한다
+    public long countMembers(Long teamId) {
+        return em.createQuery("select count(m) from Member m where m.team.id = :teamId", Long.class)
+                .setParameter("teamId", teamId)
+                .getSingleResult();
+    }
+
+    public boolean containsMember(Long teamId, Long memberId) {
+        return !em.createQuery("select 1 from Member m where m.team.id = :teamId and m.id = :memberId", Integer.class)
+                .setParameter("teamId", teamId)
+                .setParameter("memberId", memberId)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    // 팀은 프록시로만 참조하고, 아직 초기화되지 않은 Team.members 에는 추가가 대기열로만 쌓인다
+    public Member addMember(Long teamId, Member member) {
+        member.changeTeam(em.getReference(Team.class, teamId));
+        if ( member.getId() == null ) {
+            em.persist(member);
+        }
+        return member;
+    }
+
+    // 팀 수만큼의 요약 행만 읽는다 (회원 집계 없음)
+    public List<TeamMemberSummary> findMemberSummaries() {
+        return em.createQuery("select s from TeamMemberSummary s order by s.teamId", TeamMemberSummary.class)
+                .getResultList();
+    }
+
+    public Optional<TeamMemberSummary> findMemberSummary(Long teamId) {
+        return Optional.ofNullable(em.find(TeamMemberSummary.class, teamId));
+    }
+
 }
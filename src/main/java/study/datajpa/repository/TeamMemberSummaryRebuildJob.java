@@ -0,0 +1,30 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// 증분 갱신을 거치지 않은 쓰기(트랜잭션 밖 네이티브 SQL, 수동 수정 등)로 어긋난 팀 요약을 주기적으로 되돌린다
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.member-summary.rebuild.enabled", havingValue = "true", matchIfMissing = true)
+public class TeamMemberSummaryRebuildJob {
+
+    private final TeamMemberSummaryUpdater updater;
+
+    @Scheduled(cron = "${app.member-summary.rebuild.cron:0 0 4 * * *}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        int drifted = updater.rebuild();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        if ( drifted > 0 ) {
+            log.warn("Rebuilt team_member_summary: {} teams had drifted ({} ms)", drifted, elapsedMillis);
+        } else {
+            log.debug("team_member_summary is consistent ({} ms)", elapsedMillis);
+        }
+    }
+
+}
@@ -0,0 +1,304 @@
+package study.datajpa.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.config.TableWriteListener;
+import study.datajpa.config.TableWrites;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * team_member_summary(TeamMemberSummary) 를 회원 변경과 같은 트랜잭션에서 갱신한다.
+ * 엔티티 insert/update/delete(changeTeam 포함)는 Hibernate 이벤트로 팀별 증감을 모아 두었다가
+ * 커밋 직전 flush 뒤에 팀마다 merge 한 번으로 반영한다. 최소/최대 나이는 빠진 값이 경계였던 팀만 그 팀 회원으로 다시 계산한다.
+ * bulkAgePlus 같은 회원 JPQL 벌크 update 는 {@link MemberBulkUpdates} 가 알려 주는 대상 행의 바뀌기 전/후 나이로
+ * 같은 방식의 팀별 증감을 만들므로, 대상 행이 속한 팀의 요약 행만 잠그고 바꾼다 (ChunkedBulkUpdater 의 청크도 청크마다 같다).
+ * 대상 행을 알 수 없는 벌크 쓰기(네이티브 SQL 등)만 같은 트랜잭션에서 전체를 한 번 다시 집계한다.
+ * 요약 행은 팀 id 순서로 갱신하므로 병렬 청크끼리 서로의 요약 행 잠금을 기다리며 교착되지 않는다.
+ */
+@Component
+public class TeamMemberSummaryUpdater implements TableWriteListener, MemberBulkUpdateListener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String MERGE_DELTA = "merge into team_member_summary t" +
+            " using (select cast(? as bigint) as team_id, cast(? as bigint) as member_count, cast(? as bigint) as age_sum," +
+            " cast(? as integer) as min_age, cast(? as integer) as max_age) s" +
+            " on t.team_id = s.team_id" +
+            " when matched then update set t.member_count = t.member_count + s.member_count, t.age_sum = t.age_sum + s.age_sum," +
+            " t.min_age = least(t.min_age, s.min_age), t.max_age = greatest(t.max_age, s.max_age)" +
+            " when not matched then insert (team_id, member_count, age_sum, min_age, max_age)" +
+            " values (s.team_id, s.member_count, s.age_sum, s.min_age, s.max_age)";
+    // 빠진 나이가 현재 최소/최대와 같을 때만 다시 계산 (team_id 인덱스로 그 팀 회원만 읽는다)
+    private static final String RECOMPUTE_BOUNDS = "update team_member_summary" +
+            " set min_age = (select min(m.age) from member m where m.team_id = ?)," +
+            " max_age = (select max(m.age) from member m where m.team_id = ?)" +
+            " where team_id = ? and (min_age is null or max_age is null or min_age >= ? or max_age <= ?)";
+    private static final String DELETE_EMPTY = "delete from team_member_summary where team_id = ? and member_count <= 0";
+    private static final String GROUPED = "select team_id, count(*), sum(age), min(age), max(age)" +
+            " from member where team_id is not null group by team_id";
+    private static final String SUMMARIES = "select team_id, member_count, age_sum, min_age, max_age from team_member_summary";
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+    private final Map<SessionImplementor, Changes> pending = new ConcurrentHashMap<>();
+
+    public TeamMemberSummaryUpdater(EntityManagerFactory emf, EntityManager em) {
+        this.emf = emf;
+        this.em = em;
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * 집계와 다른 팀 요약 행 수를 돌려주고, 하나라도 다르면 전체를 다시 만든다.
+     * 요약 행을 먼저 잠가 그 사이 커밋하려는 증분 갱신은 재구성이 끝날 때까지 기다린다.
+     */
+    @Transactional
+    public int rebuild() {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            Map<Long, List<Object>> current = rows(connection, SUMMARIES + " for update");
+            Map<Long, List<Object>> expected = rows(connection, GROUPED);
+            Set<Long> teamIds = new HashSet<>(current.keySet());
+            teamIds.addAll(expected.keySet());
+            int drifted = 0;
+            for ( Long teamId : teamIds ) {
+                if ( !Objects.equals(current.get(teamId), expected.get(teamId)) ) {
+                    ++drifted;
+                }
+            }
+            if ( drifted > 0 ) {
+                recomputeAll(connection);
+            }
+            return drifted;
+        });
+    }
+
+    @Override
+    public void onRows(List<Row> rows) {
+        if ( !(TransactionSynchronizationManager.getResource(emf) instanceof EntityManagerHolder holder) ) {
+            return;
+        }
+        Changes changes = changes(holder.getEntityManager().unwrap(EventSource.class));
+        for ( Row row : rows ) {
+            if ( row.oldAge() != row.newAge() ) {
+                changes.remove(row.teamId(), row.oldAge());
+                changes.add(row.teamId(), row.newAge());
+            }
+        }
+    }
+
+    @Override
+    public void onWrite(String table, String sql) {
+        // 대상 행을 알린 update 는 onRows 에서 팀별 증감으로 반영했다
+        if ( !"member".equals(table) || MemberBulkUpdates.isCaptured() || !TableWrites.isBulkWrite(sql, "member_id") ) {
+            return;
+        }
+        // JPQL 벌크 연산은 트랜잭션 안에서만 실행된다. 트랜잭션 밖 네이티브 쓰기는 rebuild() 가 맞춘다
+        if ( TransactionSynchronizationManager.getResource(emf) instanceof EntityManagerHolder holder ) {
+            changes(holder.getEntityManager().unwrap(EventSource.class)).recomputeAll = true;
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if ( event.getEntity() instanceof Member member ) {
+            changes(event.getSession()).add(teamId(member.getTeam()), member.getAge());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if ( !(event.getEntity() instanceof Member) ) {
+            return;
+        }
+        Changes changes = changes(event.getSession());
+        Object[] oldState = event.getOldState();
+        if ( oldState == null ) {
+            // 이전 값을 모르면 (detached merge 등) 전체를 다시 집계한다
+            changes.recomputeAll = true;
+            return;
+        }
+        int teamIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("team");
+        int ageIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("age");
+        Long oldTeamId = teamId((Team) oldState[teamIndex]);
+        Long newTeamId = teamId((Team) event.getState()[teamIndex]);
+        int oldAge = (Integer) oldState[ageIndex];
+        int newAge = (Integer) event.getState()[ageIndex];
+        if ( Objects.equals(oldTeamId, newTeamId) && oldAge == newAge ) {
+            return;
+        }
+        changes.remove(oldTeamId, oldAge);
+        changes.add(newTeamId, newAge);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if ( event.getEntity() instanceof Member member ) {
+            changes(event.getSession()).remove(teamId(member.getTeam()), member.getAge());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // 세션(트랜잭션)마다 한 번 커밋 직전 반영, 종료 시 정리 콜백을 등록한다
+    private Changes changes(EventSource session) {
+        Changes changes = pending.get(session);
+        if ( changes == null ) {
+            changes = new Changes();
+            pending.put(session, changes);
+            session.getActionQueue().registerProcess(s -> apply(s, pending.remove(session)));
+            session.getActionQueue().registerProcess((success, s) -> pending.remove(session));
+        }
+        return changes;
+    }
+
+    private static void apply(SessionImplementor session, Changes changes) {
+        if ( changes == null || changes.isEmpty() ) {
+            return;
+        }
+        session.doWork(connection -> {
+            if ( changes.recomputeAll ) {
+                recomputeAll(connection);
+                return;
+            }
+            try (PreparedStatement merge = connection.prepareStatement(MERGE_DELTA);
+                 PreparedStatement bounds = connection.prepareStatement(RECOMPUTE_BOUNDS);
+                 PreparedStatement empty = connection.prepareStatement(DELETE_EMPTY)) {
+                for ( Map.Entry<Long, Delta> entry : changes.teams.entrySet() ) {
+                    Long teamId = entry.getKey();
+                    Delta delta = entry.getValue();
+                    merge.setLong(1, teamId);
+                    merge.setLong(2, delta.count);
+                    merge.setLong(3, delta.ageSum);
+                    setInteger(merge, 4, delta.addedMin);
+                    setInteger(merge, 5, delta.addedMax);
+                    merge.addBatch();
+                    if ( delta.removedMin != null ) {
+                        bounds.setLong(1, teamId);
+                        bounds.setLong(2, teamId);
+                        bounds.setLong(3, teamId);
+                        bounds.setInt(4, delta.removedMin);
+                        bounds.setInt(5, delta.removedMax);
+                        bounds.addBatch();
+                        empty.setLong(1, teamId);
+                        empty.addBatch();
+                    }
+                }
+                merge.executeBatch();
+                bounds.executeBatch();
+                empty.executeBatch();
+            }
+        });
+    }
+
+    private static void recomputeAll(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("delete from team_member_summary");
+            statement.executeUpdate("insert into team_member_summary (team_id, member_count, age_sum, min_age, max_age) " + GROUPED);
+        }
+    }
+
+    private static Map<Long, List<Object>> rows(Connection connection, String sql) throws SQLException {
+        Map<Long, List<Object>> rows = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while ( rs.next() ) {
+                rows.put(rs.getLong(1), Arrays.asList(rs.getLong(2), rs.getLong(3), rs.getObject(4), rs.getObject(5)));
+            }
+        }
+        return rows;
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if ( value == null ) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    // 프록시여도 id 는 초기화 없이 읽힌다
+    private static Long teamId(Team team) {
+        return team == null ? null : team.getId();
+    }
+
+    private static class Changes {
+
+        private final Map<Long, Delta> teams = new TreeMap<>();
+        private boolean recomputeAll;
+
+        void add(Long teamId, int age) {
+            if ( teamId != null ) {
+                teams.computeIfAbsent(teamId, id -> new Delta()).add(age);
+            }
+        }
+
+        void remove(Long teamId, int age) {
+            if ( teamId != null ) {
+                teams.computeIfAbsent(teamId, id -> new Delta()).remove(age);
+            }
+        }
+
+        boolean isEmpty() {
+            return !recomputeAll && teams.isEmpty();
+        }
+
+    }
+
+    private static class Delta {
+
+        private long count;
+        private long ageSum;
+        private Integer addedMin;
+        private Integer addedMax;
+        private Integer removedMin;
+        private Integer removedMax;
+
+        void add(int age) {
+            ++count;
+            ageSum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            --count;
+            ageSum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+
+    }
+
+}
@@ -1,7 +1,20 @@
 package study.datajpa.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import study.datajpa.entity.Team;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select t from Team t where t.name in :names")
+    List<Team> findByNames(@Param("names") Collection<String> names);
+
 }
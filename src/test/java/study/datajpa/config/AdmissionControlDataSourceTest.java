@@ -0,0 +1,38 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionControlDataSourceTest {
+
+    @Test
+    public void admissionLimit() throws Exception {
+
+        // given
+        AdmissionControlDataSource dataSource = new AdmissionControlDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:admission", "sa", ""), 2, Duration.ofMillis(100));
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        // when
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        first.close();
+        first.close(); // 두 번 닫아도 허가는 한 번만 반납
+
+        // then
+        try (Connection third = dataSource.getConnection()) {
+            assertEquals( dataSource.getAvailablePermits(), 0 );
+        }
+        second.close();
+        assertEquals( dataSource.getAvailablePermits(), 2 );
+
+    }
+
+}
@@ -0,0 +1,35 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.env.MockEnvironment;
+import study.datajpa.repository.TeamMemberSummaryRebuildJob;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AotConditionVerifierTest {
+
+    @Test
+    public void runtimeSwitchMustMatchBuildTimeBeans() {
+
+        // given
+        // 기본 설정으로 빌드된 빈 구성: 켜져 있는 건 matchIfMissing 인 요약 재구성 작업뿐
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("teamMemberSummaryRebuildJob", new RootBeanDefinition(TeamMemberSummaryRebuildJob.class));
+        MockEnvironment sameAsBuild = new MockEnvironment();
+        MockEnvironment routingEnabled = new MockEnvironment().withProperty("app.datasource.routing.enabled", "true");
+
+        // when
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> AotConditionVerifier.verify(routingEnabled, beanFactory));
+
+        // then
+        assertDoesNotThrow(() -> AotConditionVerifier.verify(sameAsBuild, beanFactory));
+        assertTrue( e.getMessage().contains("app.datasource.routing.enabled=true (built with false)") );
+
+    }
+
+}
@@ -0,0 +1,61 @@
+package study.datajpa.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "app.query-warmup.enabled=true")
+class QueryPlanWarmerTest {
+
+    @Autowired QueryPlanWarmer queryPlanWarmer;
+    @Autowired MemberRepository memberRepository;
+    @Autowired EntityManagerFactory emf;
+    @Autowired Environment environment;
+    @Autowired ListableBeanFactory beanFactory;
+
+    @Test
+    public void warmUpOnStartup() {
+
+        // given
+        QueryPlanWarmer.Report report = queryPlanWarmer.getLastReport();
+        Map<String, QueryPlanWarmer.Status> statuses = report.entries().stream()
+                .collect(Collectors.toMap(QueryPlanWarmer.Entry::method, QueryPlanWarmer.Entry::status));
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long missesBefore = statistics.getQueryPlanCacheMissCount();
+
+        // when
+        memberRepository.findUser("member1", 10);
+        memberRepository.findByAge(10, PageRequest.of(0, 3));
+        memberRepository.findMemberDto();
+
+        // then
+        // 시작 시 만든 플랜을 그대로 쓴다
+        assertEquals( statistics.getQueryPlanCacheMissCount(), missesBefore );
+        assertEquals( report.count(QueryPlanWarmer.Status.FAILED), 0 );
+        assertEquals( statuses.get("MemberRepository.findUser"), QueryPlanWarmer.Status.COMPILED );
+        assertEquals( statuses.get("MemberRepository.findByAge"), QueryPlanWarmer.Status.COMPILED );
+        assertEquals( statuses.get("MemberRepository.findMemberDto"), QueryPlanWarmer.Status.COMPILED );
+        assertEquals( statuses.get("MemberRepository.findByNativeQuery"), QueryPlanWarmer.Status.COMPILED );
+        assertEquals( statuses.get("MemberRepository.bulkAgePlus"), QueryPlanWarmer.Status.PARSED );
+        assertEquals( statuses.get("MemberRepository.findByNames"), QueryPlanWarmer.Status.PARSED );
+        assertTrue( report.elapsedNanos() > 0 );
+        // 같은 설정으로 AOT 빌드했다면 실행 시점 검사도 통과한다
+        assertDoesNotThrow(() -> AotConditionVerifier.verify(environment, beanFactory));
+
+    }
+
+}
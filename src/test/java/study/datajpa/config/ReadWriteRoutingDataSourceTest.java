@@ -0,0 +1,188 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.config.ReadWriteRoutingDataSource.Fallback;
+import study.datajpa.config.ReadWriteRoutingDataSource.Route;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// primary 와 별도의 H2 replica. 시작 시 한 번 복사하고 주기 복사는 테스트 중에 돌지 않게 늦춘다
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "app.datasource.routing.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=7",
+        "app.datasource.routing.lag-tolerance=1h",
+        "app.datasource.replica.url=jdbc:h2:mem:routingReplica;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.sync.enabled=true",
+        "app.datasource.replica.sync.fixed-delay=3600000",
+        "app.datasource.replica.hikari.maximum-pool-size=3",
+        "app.datasource.replica.hikari.pool-name=routingReplica"
+})
+class ReadWriteRoutingDataSourceTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired ReadWriteRoutingDataSource routingDataSource;
+    @Autowired HikariDataSource primaryDataSource;
+    @Autowired HikariDataSource replicaDataSource;
+    @Autowired ThreadPoolTaskExecutor repositoryExecutor;
+    @Autowired H2ReplicaSynchronizer replicaSynchronizer;
+
+    @Test
+    public void bindsHikariProperties() {
+        assertEquals( primaryDataSource.getMaximumPoolSize(), 7 );
+        assertEquals( primaryDataSource.getPoolName(), "primary" );
+        assertEquals( replicaDataSource.getMaximumPoolSize(), 3 );
+        assertEquals( replicaDataSource.getPoolName(), "routingReplica" );
+        // 리포지토리 실행기도 같은 값으로 크기를 정한다
+        assertEquals( repositoryExecutor.getMaxPoolSize(), 7 );
+    }
+
+    @Test
+    public void readOnlyTransactionUsesReplica() {
+
+        // given
+        long replicaBefore = routingDataSource.getCount(Route.REPLICA);
+
+        // when
+        // 쓰기 기록이 없는 새 스레드에서 조회 (findByUsername 은 username 캐시에서 끝날 수 있어 캐시 없는 메서드로)
+        CompletableFuture.runAsync(() -> memberRepository.findListByUsername("routing")).join();
+
+        // then
+        assertEquals( routingDataSource.getCount(Route.REPLICA) - replicaBefore, 1 );
+
+    }
+
+    @Test
+    public void readOnlyTransactionReadsReplicaData() {
+
+        // given
+        // replica 에만 있는 행으로 읽기가 실제로 replica 에서 왔는지 확인한다
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.update("insert into member (member_id, username, age) values (next value for member_seq, 'replicaOnly', 1)");
+
+        try {
+            // when
+            List<Member> fromReplica = CompletableFuture.supplyAsync(() -> memberRepository.findListByUsername("replicaOnly")).join();
+            List<Member> fromPrimary = memberRepository.findListByUsername("replicaOnly");
+
+            // then
+            assertEquals( fromReplica.size(), 1 );
+            assertEquals( fromPrimary.size(), 0 );
+        } finally {
+            replica.update("delete from member where username = 'replicaOnly'");
+        }
+
+    }
+
+    @Test
+    public void syncCopiesPrimaryIntoReplica() {
+
+        // given
+        Member member = memberRepository.save(new Member("routingSynced"));
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        assertEquals( replica.queryForObject("select count(*) from member where username = 'routingSynced'", Long.class), 0L );
+
+        // when
+        replicaSynchronizer.sync();
+
+        // then
+        assertEquals( replica.queryForObject("select member_id from member where username = 'routingSynced'", Long.class),
+                member.getId() );
+
+    }
+
+    @Test
+    public void readAfterWriteStaysOnPrimary() {
+
+        // given
+        long primaryBefore = routingDataSource.getCount(Route.PRIMARY);
+        long replicaBefore = routingDataSource.getCount(Route.REPLICA);
+
+        // when
+        memberRepository.save(new Member("routing"));
+        memberRepository.findByUsername("routing");
+
+        // then
+        assertEquals( routingDataSource.getCount(Route.PRIMARY) - primaryBefore, 2 );
+        assertEquals( routingDataSource.getCount(Route.REPLICA) - replicaBefore, 0 );
+
+    }
+
+    @Test
+    public void batchedSaveUsesPrimary() {
+
+        // given
+        long replicaBefore = routingDataSource.getCount(Route.REPLICA);
+
+        // when
+        CompletableFuture.runAsync(() -> memberRepository.saveAllBatched(List.of(new Member("routingBatch")), 10)).join();
+
+        // then
+        assertEquals( routingDataSource.getCount(Route.REPLICA) - replicaBefore, 0 );
+
+    }
+
+    @Test
+    public void fallbackToPrimary() throws Exception {
+
+        // given
+        DriverManagerDataSource primary = new DriverManagerDataSource("jdbc:h2:mem:fallback", "sa", "");
+        DriverManagerDataSource replica = new DriverManagerDataSource("jdbc:h2:mem:fallback;IFEXISTS=TRUE", "sa", "");
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(
+                primary, replica, Duration.ZERO, Fallback.PRIMARY, Duration.ofMinutes(1));
+
+        // when
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            }
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+
+        // then
+        // 두 번째 요청은 retry-after 동안 replica 를 시도하지 않는다
+        assertEquals( dataSource.getFallbackCount(), 1 );
+        assertEquals( dataSource.getCount(Route.PRIMARY), 2 );
+
+    }
+
+    @Test
+    public void credentialsAreDelegatedToRoute() throws Exception {
+
+        // given
+        DriverManagerDataSource primary = new DriverManagerDataSource("jdbc:h2:mem:credentials");
+        DriverManagerDataSource replica = new DriverManagerDataSource("jdbc:h2:mem:credentials");
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(
+                primary, replica, Duration.ZERO, Fallback.FAIL, Duration.ofMinutes(1));
+
+        // when
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            try (Connection connection = dataSource.getConnection("sa", "")) {
+                assertEquals( connection.getMetaData().getUserName(), "SA" );
+            }
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+
+        // then
+        assertEquals( dataSource.getCount(Route.REPLICA), 1 );
+
+    }
+
+}
@@ -0,0 +1,45 @@
+package study.datajpa.entity;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.repository.MemberRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.auditing.mode=fast")
+@Transactional
+class AuditListenerTest {
+
+    @PersistenceContext
+    EntityManager em;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void fastAuditing() {
+
+        // given
+        Member member1 = memberRepository.save(new Member("audit1"));
+        Member member2 = memberRepository.save(new Member("audit2"));
+        em.flush();
+
+        // when
+        member1.setUsername("audit3");
+        em.flush();
+        em.clear();
+        Member findMember = memberRepository.findById(member1.getId()).get();
+
+        // then
+        // 같은 트랜잭션의 쓰기는 auditor 를 한 번만 조회한다
+        assertNotNull( member1.getCreatedBy() );
+        assertEquals( member1.getCreatedBy(), member2.getCreatedBy() );
+        assertEquals( findMember.getLastModifiedBy(), findMember.getCreatedBy() );
+        assertNotNull( findMember.getCreatedDate() );
+        assertFalse( findMember.getLastModifiedDate().isBefore(findMember.getCreatedDate()) );
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package study.datajpa.outbox;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// 기본 설정(app.outbox.enabled=false)에서는 drain 할 relay 가 없을 수 있으므로 outbox 를 쓰지 않는다
+@SpringBootTest
+class OutboxDisabledTest {
+
+    @PersistenceContext
+    EntityManager em;
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void writesNothingWhenDisabled() {
+
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long before = outboxCount(tx);
+
+        try {
+            // when
+            tx.executeWithoutResult(status -> em.persist(new Member("outboxDisabled", 10000)));
+            memberRepository.bulkAgePlus(10000);
+
+            // then
+            assertEquals( outboxCount(tx), before );
+        } finally {
+            tx.executeWithoutResult(status ->
+                    em.createQuery("delete from Member m where m.username = 'outboxDisabled'").executeUpdate());
+        }
+
+    }
+
+    private long outboxCount(TransactionTemplate tx) {
+        Long count = tx.execute(status -> em.createQuery("select count(e) from OutboxEvent e", Long.class)
+                .getSingleResult());
+        return count;
+    }
+
+}
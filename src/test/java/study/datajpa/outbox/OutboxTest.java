@@ -0,0 +1,293 @@
+package study.datajpa.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.OutboxEvent;
+import study.datajpa.entity.OutboxEvent.EventType;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.BulkUpdateListener;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// outbox 는 커밋 직전에 쓰이므로 커밋된 데이터로 확인한다
+@SpringBootTest(properties = "app.outbox.enabled=true")
+class OutboxTest {
+
+    @PersistenceContext
+    EntityManager em;
+    @Autowired OutboxRelay relay;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired ObjectMapper objectMapper;
+
+    InMemoryOutboxSink sink;
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        sink = (InMemoryOutboxSink) relay.getSink();
+        relay.drain();
+        sink.clear();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'outbox%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'outbox%'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void writeEventsInSameTransaction() throws Exception {
+
+        // given
+        Long memberId = tx.execute(status -> {
+            Team team = new Team("outboxTeam");
+            em.persist(team);
+            Member member = new Member(10, "outbox1", team);
+            em.persist(member);
+            return member.getId();
+        });
+        tx.executeWithoutResult(status -> em.find(Member.class, memberId).setAge(11));
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, memberId)));
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("outboxRolledBack", 1));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        // when
+        relay.drain();
+
+        // then
+        // 순서는 엔티티(aggregate_key) 단위로만 보장된다
+        List<OutboxEvent> memberEvents = sink.getEvents().stream()
+                .filter(event -> event.getAggregateKey().equals("Member:" + memberId))
+                .toList();
+        List<OutboxEvent> teamEvents = sink.getEvents().stream()
+                .filter(event -> event.getAggregateType().equals("Team"))
+                .toList();
+        assertEquals( sink.getEvents().size(), 4 );
+        assertEquals( memberEvents.stream().map(OutboxEvent::getEventType).toList(),
+                List.of(EventType.CREATED, EventType.UPDATED, EventType.DELETED) );
+        assertEquals( teamEvents.stream().map(OutboxEvent::getEventType).toList(), List.of(EventType.CREATED) );
+        JsonNode updated = objectMapper.readTree(memberEvents.get(1).getPayload());
+        assertEquals( updated.get("age").asInt(), 11 );
+        assertEquals( updated.get("teamId").asLong(), teamEvents.get(0).getAggregateId() );
+
+    }
+
+    @Test
+    public void bulkUpdateWritesEventPerEntity() {
+
+        // given
+        Long[] ids = tx.execute(status -> {
+            Member first = new Member("outboxBulk1", 9000);
+            Member second = new Member("outboxBulk2", 9001);
+            em.persist(first);
+            em.persist(second);
+            em.persist(new Member("outboxBulk3", 8999));
+            return new Long[] { first.getId(), second.getId() };
+        });
+        relay.drain();
+        sink.clear();
+
+        // when
+        int updated = memberRepository.bulkAgePlus(9000);
+        memberRepository.bulkAgePlusChunked("outboxBulk", 9002, 100, 2, BulkUpdateListener.NONE);
+        relay.drain();
+
+        // then
+        // 엔티티 변경과 같은 aggregate_key 라서 같은 파티션에서 순서대로 전달된다
+        assertEquals( updated, 2 );
+        List<OutboxEvent> events = sink.getEvents();
+        assertTrue( events.stream().allMatch(event -> event.getEventType() == EventType.UPDATED) );
+        List<OutboxEvent> first = events.stream().filter(event -> ids[0].equals(event.getAggregateId())).toList();
+        List<OutboxEvent> second = events.stream().filter(event -> ids[1].equals(event.getAggregateId())).toList();
+        assertEquals( first.size(), 1 );
+        assertEquals( second.size(), 2 );
+        assertEquals( first.get(0).getAggregateKey(), "Member:" + ids[0] );
+        assertEquals( first.get(0).getPartition(), OutboxEventWriter.partition("Member:" + ids[0], 16) );
+        assertEquals( payloadAge(first.get(0)), 9001 );
+        assertEquals( second.stream().map(this::payloadAge).toList(), List.of(9002, 9003) );
+
+    }
+
+    @Test
+    public void bulkUpdateOverManyRowsKeepsOrderWithEntityChanges() {
+
+        // given
+        int rows = 1200;
+        Long changedId = tx.execute(status -> {
+            for ( int i = 0; i < rows; ++i ) {
+                em.persist(new Member("outboxMany" + i, 9500));
+            }
+            Member changed = new Member("outboxManyChanged", 9400);
+            em.persist(changed);
+            return changed.getId();
+        });
+        relay.drain();
+        sink.clear();
+
+        // when
+        // 같은 트랜잭션에서 엔티티 변경 뒤 벌크 update 가 실행된다
+        int updated = tx.execute(status -> {
+            em.find(Member.class, changedId).setAge(9500);
+            return memberJpaRepository.bulkAgePlus(9500);
+        });
+        relay.drain();
+
+        // then
+        List<OutboxEvent> events = sink.getEvents();
+        List<OutboxEvent> changed = events.stream().filter(event -> changedId.equals(event.getAggregateId())).toList();
+        assertEquals( updated, rows + 1 );
+        assertEquals( events.size(), rows + 2 );
+        assertEquals( changed.stream().map(this::payloadAge).toList(), List.of(9500, 9501) );
+        assertTrue( changed.get(0).getId() < changed.get(1).getId() );
+
+    }
+
+    @Test
+    public void deliverInOrderPerEntityWithConcurrentRelays() {
+
+        // given
+        Long[] ids = tx.execute(status -> {
+            Member first = new Member("outboxOrder1", 0);
+            Member second = new Member("outboxOrder2", 0);
+            em.persist(first);
+            em.persist(second);
+            return new Long[] { first.getId(), second.getId() };
+        });
+        for ( int age = 1; age <= 20; ++age ) {
+            int value = age;
+            tx.executeWithoutResult(status -> {
+                em.find(Member.class, ids[0]).setAge(value);
+                em.find(Member.class, ids[1]).setAge(value);
+            });
+        }
+
+        // when
+        OutboxRelay smallBatches = new OutboxRelay(em, transactionManager, sink, 3, 16, new SimpleMeterRegistry());
+        List<CompletableFuture<Long>> relays = new ArrayList<>();
+        for ( int i = 0; i < 4; ++i ) {
+            relays.add(CompletableFuture.supplyAsync(smallBatches::drain));
+        }
+        relays.forEach(CompletableFuture::join);
+        relay.drain();
+
+        // then
+        List<OutboxEvent> events = sink.getEvents();
+        assertEquals( events.size(), 42 );
+        for ( Long id : ids ) {
+            List<Long> eventIds = events.stream()
+                    .filter(event -> id.equals(event.getAggregateId()))
+                    .map(OutboxEvent::getId)
+                    .toList();
+            assertEquals( eventIds.size(), 21 );
+            assertEquals( eventIds, eventIds.stream().sorted().toList() );
+        }
+
+    }
+
+    @Test
+    public void failedBatchIsRetried() {
+
+        // given
+        tx.executeWithoutResult(status -> em.persist(new Member("outboxRetry", 1)));
+        AtomicBoolean fail = new AtomicBoolean(true);
+        OutboxRelay failingOnce = new OutboxRelay(em, transactionManager, events -> {
+            if ( fail.getAndSet(false) ) {
+                throw new IllegalStateException("sink unavailable");
+            }
+            sink.publish(events);
+        }, 100, 16, new SimpleMeterRegistry());
+
+        // when
+        assertThrows(IllegalStateException.class, failingOnce::relayBatch);
+        long relayed = failingOnce.drain();
+
+        // then
+        assertEquals( relayed, 1 );
+        assertEquals( sink.getEvents().get(0).getEventType(), EventType.CREATED );
+
+    }
+
+    @Test
+    public void memorySinkKeepsOnlyRecentEvents() {
+
+        // given
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("outboxBounded1", 1));
+            em.persist(new Member("outboxBounded2", 2));
+        });
+        InMemoryOutboxSink bounded = new InMemoryOutboxSink(1);
+        OutboxRelay toBounded = new OutboxRelay(em, transactionManager, bounded, 100, 16, new SimpleMeterRegistry());
+
+        // when
+        long relayed = toBounded.drain();
+
+        // then
+        assertEquals( relayed, 2 );
+        assertEquals( bounded.getEvents().size(), 1 );
+
+    }
+
+    @Test
+    public void fileSinkAppendsJsonLines(@TempDir Path dir) throws Exception {
+
+        // given
+        Path file = dir.resolve("events.ndjson");
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("outboxFile1", 1));
+            em.persist(new Member("outboxFile2", 2));
+        });
+        OutboxRelay toFile = new OutboxRelay(em, transactionManager, new FileOutboxSink(file, objectMapper), 1,
+                16, new SimpleMeterRegistry());
+
+        // when
+        long relayed = toFile.drain();
+
+        // then
+        List<String> lines = Files.readAllLines(file);
+        assertEquals( relayed, 2 );
+        assertEquals( lines.size(), 2 );
+        assertEquals( objectMapper.readTree(lines.get(1)).get("payload").get("username").asText(), "outboxFile2" );
+
+    }
+
+    private int payloadAge(OutboxEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload()).get("age").asInt();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
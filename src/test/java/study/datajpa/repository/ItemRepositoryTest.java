@@ -1,10 +1,13 @@
 package study.datajpa.repository;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import study.datajpa.entity.Item;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -12,10 +15,26 @@ class ItemRepositoryTest {
 
     @Autowired ItemRepository itemRepository;
 
+    // 커밋된 데이터로 확인하므로 다른 테스트에 남지 않게 지운다
+    @AfterEach
+    public void cleanUp() {
+        itemRepository.deleteAllByIdInBatch(List.of("U1", "UP1", "UP2", "UP3"));
+    }
+
     @Test
     public void save() {
         Item item = new Item("U1");
         itemRepository.save(item);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void upsertAll() {
+        int inserted = itemRepository.upsertAll(List.of(new Item("UP1"), new Item("UP2")));
+        int upserted = itemRepository.upsertAll(List.of(new Item("UP2"), new Item("UP3")));
+
+        assertEquals(inserted, 2);
+        assertEquals(upserted, 1);
+        assertEquals(itemRepository.findAllById(List.of("UP1", "UP2", "UP3")).size(), 3);
+    }
+
+}
@@ -98,6 +98,28 @@ class MemberJpaRepositoryTest {
 
     }
 
+    @Test
+    public void keysetPaging() {
+
+        // given
+        memberJpaRepository.save(new Member("keyset1", 1015));
+        memberJpaRepository.save(new Member("keyset2", 1015));
+        memberJpaRepository.save(new Member("keyset3", 1015));
+        memberJpaRepository.save(new Member("keyset4", 1015));
+        memberJpaRepository.save(new Member("keyset5", 1015));
+
+        // when
+        List<Member> first = memberJpaRepository.findByPageAfter(1015, null, null, 3);
+        Member last = first.get(first.size() - 1);
+        List<Member> second = memberJpaRepository.findByPageAfter(1015, last.getUsername(), last.getId(), 3);
+
+        // then
+        assertEquals(first.get(0).getUsername(), "keyset5");
+        assertEquals(last.getUsername(), "keyset3");
+        assertEquals(second.size(), 2);
+        assertEquals(second.get(1).getUsername(), "keyset1");
+    }
+
     @Test
     public void bulkUpdate() {
 
@@ -0,0 +1,85 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.support.ExplainPlan;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class MemberQueryPlanTest {
+
+    @PersistenceContext
+    EntityManager em;
+    @Autowired MemberRepository memberRepository;
+    @Autowired DataSource dataSource;
+
+    ExplainPlan explainPlan;
+    Long teamId;
+
+    @BeforeEach
+    public void setUp() {
+        explainPlan = new ExplainPlan(dataSource);
+
+        Team team = new Team("planTeam");
+        em.persist(team);
+        em.persist(new Member(10, "plan1", team));
+        em.persist(new Member(20, "plan2", team));
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+        teamId = team.getId();
+    }
+
+    @Test
+    public void usernameQueriesUseIndex() {
+
+        // when & then
+        explainPlan.assertNoTableScan("findByUsername", () -> memberRepository.findByUsername("plan1"));
+        explainPlan.assertNoTableScan("findListByUsername", () -> memberRepository.findListByUsername("plan1"));
+        explainPlan.assertNoTableScan("findMemberByUsername", () -> memberRepository.findMemberByUsername("plan1"));
+        explainPlan.assertNoTableScan("findOptionalByUsername", () -> memberRepository.findOptionalByUsername("plan1"));
+        explainPlan.assertNoTableScan("findByNames", () -> memberRepository.findByNames(List.of("plan1", "plan2")));
+        explainPlan.assertNoTableScan("findLockByUsername", () -> memberRepository.findLockByUsername("plan1"));
+        explainPlan.assertNoTableScan("findByNativeQuery", () -> memberRepository.findByNativeQuery("plan1"));
+        explainPlan.assertNoTableScan("findProjectionsByUsername",
+                () -> memberRepository.findProjectionsByUsername("plan1", NestedClosedProjections.class));
+
+    }
+
+    @Test
+    public void teamAndAuditQueriesUseIndex() {
+
+        // when & then
+        explainPlan.assertNoTableScan("Team.members", () -> em.find(Team.class, teamId).getMembers().size());
+        explainPlan.assertNoTableScan("findByLastModifiedDateAfter",
+                () -> memberRepository.findByLastModifiedDateAfter(LocalDateTime.now().minusMinutes(1)));
+
+    }
+
+    @Test
+    public void detectsTableScan() {
+
+        // when
+        List<String> selects = explainPlan.capture(() -> memberRepository.findUsernameList());
+
+        // then
+        // 조건 없는 전체 조회는 인덱스만 읽더라도 전체 스캔이다
+        assertTrue( ExplainPlan.isFullScan(explainPlan.explain(selects.get(0))) );
+        assertTrue( ExplainPlan.isFullScan(explainPlan.explain(explainPlan.capture(() -> memberRepository.findMemberCustom()).get(0))) );
+
+    }
+
+}
@@ -1,21 +1,42 @@
 package study.datajpa.repository;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.RepositoryMetricsEndpoint;
+import study.datajpa.config.RepositoryMetricsInterceptor;
+import study.datajpa.config.SqlStatementCounter;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.support.SqlStatementBudget;
 
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
@@ -24,10 +45,15 @@ class MemberRepositoryTest {
 
     @Autowired MemberRepository memberRepository;
     @Autowired TeamRepository teamRepository;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired RepositoryMetricsEndpoint repositoryMetricsEndpoint;
+    @Autowired ThreadPoolTaskExecutor repositoryExecutor;
     @PersistenceContext
     EntityManager em;
 
     @Test
+    @SqlStatementBudget(selects = 0)
     public void testMember() {
         System.out.println("memberRepository = " + memberRepository.getClass());
         Member member = Member.builder1()
@@ -70,6 +96,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 2)
     public void findByUsernameAndAgeGreaterThen() {
 
         Member m1 = new Member("memberA", 10);
@@ -91,6 +118,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 1)
     public void testNamedQuery() {
 
         Member m1 = new Member("AAA", 10);
@@ -105,6 +133,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 1)
     public void testQuery() {
 
         Member m1 = new Member("AAA", 10);
@@ -133,6 +162,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 1)
     public void findMemberDto() {
 
         Member m1 = new Member("AAA", 10);
@@ -150,6 +180,58 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 3)
+    public void findMemberDtoPage() {
+
+        // given
+        Team team = new Team("dtoTeam");
+        em.persist(team);
+        em.persist(new Member(10, "dto1", team));
+        em.persist(new Member(20, "dto2", team));
+        em.flush();
+        em.clear();
+
+        // when
+        Page<MemberDto> page = memberRepository.findMemberDtoPage(
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id")), CountStrategy.EXACT);
+        Slice<MemberDto> slice = memberRepository.findMemberDtoAfter(page.getContent().get(1).getId() - 1, 1);
+
+        // then
+        assertEquals( page.getContent().get(0).getUsername(), "dto2" );
+        assertEquals( page.getContent().get(0).getTeamname(), "dtoTeam" );
+        assertEquals( slice.getContent().get(0).getUsername(), "dto1" );
+        assertTrue( slice.hasNext() );
+        assertEquals( em.unwrap(Session.class).getStatistics().getEntityCount(), 0 );
+
+    }
+
+    @Test
+    @SqlStatementBudget(selects = 1)
+    public void streamMemberDto() {
+
+        // given
+        Team team = new Team("teamA");
+        em.persist(team);
+        em.persist(new Member(10, "stream1", team));
+        em.persist(new Member(20, "stream2", team));
+        em.flush();
+        em.clear();
+
+        // when
+        List<MemberDto> result;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto(100)) {
+            result = stream.filter(dto -> dto.getUsername().startsWith("stream")).toList();
+        }
+
+        // then
+        assertEquals( result.size(), 2 );
+        assertEquals( result.get(0).getTeamname(), "teamA" );
+        assertEquals( em.unwrap(Session.class).getStatistics().getEntityCount(), 0 );
+
+    }
+
+    @Test
+    @SqlStatementBudget(selects = 1)
     public void findByNames() {
 
         Member m1 = new Member("AAA", 10);
@@ -165,6 +247,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 3)
     public void returnType() {
 
         Member m1 = new Member("AAA", 10);
@@ -183,6 +266,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 2)
     public void Paging() {
 
         // given
@@ -212,6 +296,129 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void countStrategy() {
+
+        // given
+        memberRepository.save(new Member("member1", 2023));
+        memberRepository.save(new Member("member2", 2023));
+        memberRepository.save(new Member("member3", 2023));
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "username"));
+
+        // when
+        Page<Member> exact = memberRepository.findPageByAge(2023, pageRequest, CountStrategy.EXACT);
+        Page<Member> cached = memberRepository.findPageByAge(2023, pageRequest, CountStrategy.CACHED);
+        memberRepository.save(new Member("member4", 2023));
+        Page<Member> afterWrite = memberRepository.findPageByAge(2023, pageRequest, CountStrategy.CACHED);
+        Page<Member> estimated = memberRepository.findAllPage(PageRequest.of(0, 2), CountStrategy.ESTIMATED);
+
+        // then
+        assertEquals( exact.getTotalElements(), 3 );
+        assertEquals( cached.getTotalElements(), 3 );
+        assertEquals( cached.getContent().get(0).getUsername(), "member3" );
+        assertEquals( afterWrite.getTotalElements(), 4 );
+        assertTrue( estimated.getTotalElements() >= 0 );
+
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void countCacheInvalidatedAfterCompletion() {
+
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        // 첫 페이지가 다 차야 count 를 조회한다
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        memberRepository.saveAll(List.of(new Member("countCache", 2024), new Member("countCache", 2024)));
+
+        try {
+            // when
+            // 롤백될 트랜잭션이 자기 변경이 포함된 count 를 캐시
+            long inRolledBack = tx.execute(status -> {
+                memberRepository.save(new Member("countCache", 2024));
+                status.setRollbackOnly();
+                return memberRepository.findPageByAge(2024, pageRequest, CountStrategy.CACHED).getTotalElements();
+            });
+            long afterRollback = memberRepository.findPageByAge(2024, pageRequest, CountStrategy.CACHED).getTotalElements();
+
+            // 쓰기 문장 뒤, 커밋 전에 다른 트랜잭션이 옛 count 를 캐시
+            long beforeCommit = tx.execute(status -> {
+                memberRepository.saveAndFlush(new Member("countCache", 2024));
+                return CompletableFuture.supplyAsync(() -> memberRepository.findPageByAge(2024, pageRequest, CountStrategy.CACHED)
+                        .getTotalElements(), executor).orTimeout(10, TimeUnit.SECONDS).join();
+            });
+            long afterCommit = memberRepository.findPageByAge(2024, pageRequest, CountStrategy.CACHED).getTotalElements();
+
+            // then
+            assertEquals( inRolledBack, 3 );
+            assertEquals( afterRollback, 2 );
+            assertEquals( beforeCommit, 2 );
+            assertEquals( afterCommit, 3 );
+        } finally {
+            executor.shutdown();
+            tx.executeWithoutResult(status -> em.createQuery("delete from Member m where m.username = 'countCache'").executeUpdate());
+        }
+
+    }
+
+    @Test
+    @SqlStatementBudget(selects = 2)
+    public void keysetPaging() {
+
+        // given
+        Member m1 = memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 10));
+        Member m3 = memberRepository.save(new Member("member3", 10));
+        memberRepository.save(new Member("member4", 10));
+        Member m5 = memberRepository.save(new Member("member5", 10));
+
+        // when
+        Slice<Member> first = memberRepository.findByIdGreaterThanOrderByIdAsc(m1.getId() - 1, PageRequest.of(0, 3));
+        Long cursor = first.getContent().get(first.getNumberOfElements() - 1).getId();
+        Slice<Member> second = memberRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, 3));
+
+        // then
+        assertEquals( first.getNumberOfElements(), 3 );
+        assertEquals( cursor, m3.getId() );
+        assertTrue( first.hasNext() );
+        assertEquals( second.getNumberOfElements(), 2 );
+        assertEquals( second.getContent().get(1), m5 );
+        assertFalse( second.hasNext() );
+
+    }
+
+    @Test
+    public void memberCursor() {
+        MemberCursor cursor = MemberCursor.after(42L);
+
+        assertEquals( MemberCursor.decode(cursor.encode()).getLastId(), 42L );
+        assertEquals( MemberCursor.decode("").getLastId(), 0L );
+        assertThrows( IllegalArgumentException.class, () -> MemberCursor.decode("bm90LWEtY3Vyc29y") );
+    }
+
+    @Test
+    public void saveAllBatched() {
+
+        // given
+        Team team = teamRepository.save(new Team("bulkTeam"));
+        List<Member> members = new ArrayList<>();
+        for ( int i = 0; i < 250; ++i ) {
+            Member member = new Member("bulk" + i, 3000);
+            member.setTeam(team);
+            members.add(member);
+        }
+
+        // when
+        int saved = memberRepository.saveAllBatched(members, 100);
+
+        // then
+        assertEquals( saved, 250 );
+        assertFalse( em.contains(members.get(0)) );
+        assertEquals( memberRepository.findPageByAge(3000, PageRequest.of(0, 10), CountStrategy.EXACT).getTotalElements(), 250 );
+
+    }
+
     @Test
     public void bulkUpdate() {
 
@@ -237,6 +444,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 1)
     public void findMemberLazy() {
 
         // given
@@ -266,6 +474,30 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 2)
+    public void batchFetchTeam() {
+
+        // given
+        for ( int i = 0; i < 3; ++i ) {
+            Team team = new Team("batchTeam" + i);
+            em.persist(team);
+            em.persist(new Member(10, "batch" + i, team));
+        }
+        em.flush();
+        em.clear();
+
+        // when: 회원 1번 + 팀 3개를 한 번에 (N + 1 이면 4번)
+        List<Member> members = memberRepository.findByNames(List.of("batch0", "batch1", "batch2"));
+
+        // then
+        for (Member member : members) {
+            assertTrue( member.getTeam().getName().startsWith("batchTeam") );
+        }
+
+    }
+
+    @Test
+    @SqlStatementBudget(selects = 1)
     public void queryHint() {
 
         // given
@@ -284,6 +516,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 1)
     public void lock() {
 
         // given
@@ -306,6 +539,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 1)
     public void queryByExample() {
 
         // given
@@ -337,6 +571,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlStatementBudget(selects = 1)
     public void projections() {
 
         // given
@@ -363,6 +598,69 @@ class MemberRepositoryTest {
     }
 
     @Test
+    public void openProjectionFallsBackToSpringData() {
+
+        // given
+        em.persist(new Member("open1", 30));
+        em.flush();
+        em.clear();
+
+        // when
+        List<UsernameAndAge> result = memberRepository.findProjectionsByUsername("open1", UsernameAndAge.class);
+
+        // then
+        assertEquals( result.size(), 1 );
+        assertEquals( result.get(0).getUsernameAndAge(), "open1 30" );
+        assertFalse( GeneratedProjection.isClosed(UsernameAndAge.class) );
+        assertTrue( GeneratedProjection.isClosed(NestedClosedProjections.class) );
+
+    }
+
+    public interface UsernameAndAge {
+
+        @Value("#{target.username + ' ' + target.age}")
+        String getUsernameAndAge();
+
+    }
+
+    @Test
+    @SqlStatementBudget(selects = 3)
+    public void nestedProjectionSingleQuery() {
+
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member(10, "nested1", teamA));
+        em.persist(new Member("nested1", 20));
+        em.flush();
+        em.clear();
+        SqlStatementCounter.reset();
+
+        // when
+        List<NestedClosedProjections> result = memberRepository.findProjectionsByUsername("nested1", NestedClosedProjections.class);
+        String sql = SqlStatementCounter.current().getRecorded().get(0);
+        int entityCount = em.unwrap(Session.class).getStatistics().getEntityCount();
+        List<UsernameOnlyDto> dtos = memberRepository.findProjectionsByUsername("nested1", UsernameOnlyDto.class);
+        List<Member> members = memberRepository.findProjectionsByUsername("nested1", Member.class);
+
+        // then
+        // 팀은 join 으로 이름만 읽고 엔티티는 만들지 않는다
+        String selectList = sql.substring(0, sql.indexOf(" from "));
+        assertEquals( result.size(), 2 );
+        assertEquals( result.stream().filter(projection -> projection.getTeam() != null)
+                .map(projection -> projection.getTeam().getName()).toList(), List.of("teamA") );
+        assertTrue( selectList.contains("name") );
+        assertFalse( selectList.contains("age") );
+        assertFalse( selectList.contains("created") );
+        assertEquals( entityCount, 0 );
+        assertEquals( dtos.get(0).getUsername(), "nested1" );
+        assertEquals( members.size(), 2 );
+        assertEquals( SqlStatementCounter.current().getSelects(), 3 );
+
+    }
+
+    @Test
+    @SqlStatementBudget(selects = 2)
     public void nativeQuery() {
 
         // given
@@ -390,4 +688,320 @@ class MemberRepositoryTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void repositoryMetrics() {
+
+        // given
+        memberRepository.save(new Member("metricsUser", 10));
+        memberRepository.save(new Member("metricsUser", 20));
+        Timer timer = meterRegistry.timer(RepositoryMetricsInterceptor.INVOCATIONS, "repository", "MemberRepository",
+                "method", "findByUsernameAndAgeGreaterThan(String,int)", "outcome", "SUCCESS");
+        DistributionSummary rows = meterRegistry.summary(RepositoryMetricsInterceptor.ROWS,
+                "repository", "MemberRepository", "method", "findByUsernameAndAgeGreaterThan(String,int)");
+        Timer findAll = meterRegistry.timer(RepositoryMetricsInterceptor.INVOCATIONS, "repository", "MemberRepository",
+                "method", "findAll()", "outcome", "SUCCESS");
+        Timer findAllSorted = meterRegistry.timer(RepositoryMetricsInterceptor.INVOCATIONS, "repository", "MemberRepository",
+                "method", "findAll(Sort)", "outcome", "SUCCESS");
+        long countBefore = timer.count();
+        double rowsBefore = rows.totalAmount();
+        long findAllBefore = findAll.count();
+        long findAllSortedBefore = findAllSorted.count();
+
+        // when
+        memberRepository.findByUsernameAndAgeGreaterThan("metricsUser", 5);
+        memberRepository.findAll(Sort.by("id"));
+
+        // then
+        // 오버로드는 파라미터 타입으로 나뉜다
+        assertEquals( timer.count() - countBefore, 1 );
+        assertEquals( rows.totalAmount() - rowsBefore, 2.0 );
+        assertEquals( findAll.count() - findAllBefore, 0 );
+        assertEquals( findAllSorted.count() - findAllSortedBefore, 1 );
+        assertTrue( repositoryMetricsEndpoint.methods().stream()
+                .anyMatch(summary -> summary.method().equals("findByUsernameAndAgeGreaterThan(String,int)")
+                        && summary.maxPersistenceContextSize() >= 2) );
+
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void claimBatch() throws Exception {
+
+        // given
+        // 컨트롤러 init 으로 커밋된 회원 100명을 작업 큐로 사용
+        int workers = 4;
+        int batchSize = 10;
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch holding = new CountDownLatch(workers);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> selects = new CopyOnWriteArrayList<>();
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for ( int i = 0; i < workers; ++i ) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return tx.execute(status -> {
+                    SqlStatementCounter.reset();
+                    List<Long> ids = memberRepository.claimBatch(batchSize).stream().map(Member::getId).toList();
+                    selects.add(SqlStatementCounter.current().getSelects());
+                    // 잠금을 쥔 채로 다른 작업자가 모두 가져갈 때까지 기다린다
+                    holding.countDown();
+                    await(release);
+                    return ids;
+                });
+            }));
+        }
+
+        // when
+        start.countDown();
+        // 서로의 잠금을 기다렸다면 먼저 가져간 작업자가 놓아줄 때까지 나머지는 claimBatch 에서 막혀 있다
+        // (시간 제한은 교착 시 테스트를 끝내기 위한 것)
+        boolean allHolding = holding.await(30, TimeUnit.SECONDS);
+        release.countDown();
+        Set<Long> claimed = ConcurrentHashMap.newKeySet();
+        int total = 0;
+        for ( Future<List<Long>> future : futures ) {
+            List<Long> ids = future.get(30, TimeUnit.SECONDS);
+            claimed.addAll(ids);
+            total += ids.size();
+        }
+        executor.shutdown();
+
+        // then
+        assertTrue( allHolding );
+        assertEquals( total, workers * batchSize );
+        assertEquals( claimed.size(), total );
+        // 작업자마다 select ... for update skip locked 한 번
+        assertEquals( selects, List.of(1L, 1L, 1L, 1L) );
+        assertThrows(org.springframework.transaction.IllegalTransactionStateException.class,
+                () -> memberRepository.claimBatch(batchSize));
+
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void bulkAgePlusChunked() {
+
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Member> members = new ArrayList<>();
+        for ( int i = 0; i < 30; ++i ) {
+            members.add(new Member("chunk", 6000 + i));
+        }
+        memberRepository.saveAllBatched(members, 100);
+
+        try {
+            // when
+            // 실제로 갱신된 첫 청크가 커밋된 뒤 실패
+            assertThrows(ChunkFailure.class, () -> memberRepository.bulkAgePlusChunked("chunkAgePlus", 6000, 10, 1,
+                    (completed, total, updated) -> {
+                        if ( updated > 0 ) {
+                            throw new ChunkFailure();
+                        }
+                    }));
+            // 청크 크기나 조건이 다르면 남은 체크포인트로 이어서 실행하지 않는다 (리포지토리 예외 변환으로 감싸진다)
+            assertThrows(InvalidDataAccessApiUsageException.class, () -> memberRepository.bulkAgePlusChunked("chunkAgePlus", 6000, 5, 1,
+                    BulkUpdateListener.NONE));
+            assertThrows(InvalidDataAccessApiUsageException.class, () -> memberRepository.bulkAgePlusChunked("chunkAgePlus", 6001, 10, 1,
+                    BulkUpdateListener.NONE));
+            List<Integer> progress = new CopyOnWriteArrayList<>();
+            BulkUpdateResult result = memberRepository.bulkAgePlusChunked("chunkAgePlus", 6000, 10, 4,
+                    (completed, total, updated) -> progress.add(completed));
+
+            // then
+            assertTrue( result.getResumedChunks() > 0 );
+            assertEquals( progress.size(), result.getTotalChunks() - result.getResumedChunks() );
+            assertEquals( progress.stream().max(Integer::compare).get(), result.getTotalChunks() );
+            List<Integer> ages = memberRepository.findByUsername("chunk").stream().map(Member::getAge).sorted().toList();
+            for ( int i = 0; i < 30; ++i ) {
+                assertEquals( ages.get(i), 6001 + i );
+            }
+
+            // 끝난 작업의 체크포인트는 지워지므로 같은 이름으로 다시 실행하면 처음부터 갱신한다
+            long checkpoints = tx.execute(status -> em.createQuery(
+                    "select count(c) from BulkUpdateCheckpoint c where c.jobName = 'chunkAgePlus'", Long.class)
+                    .getSingleResult());
+            assertEquals( checkpoints, 0 );
+            BulkUpdateResult rerun = memberRepository.bulkAgePlusChunked("chunkAgePlus", 6000, 10, 4, BulkUpdateListener.NONE);
+            assertEquals( rerun.getResumedChunks(), 0 );
+            assertEquals( rerun.getUpdatedRows(), 30L );
+
+            // 호출한 트랜잭션이 flush 한 행을 청크가 갱신하려 하면 그 잠금을 기다리며 멈추므로 시작 전에 거절한다
+            long started = System.nanoTime();
+            tx.executeWithoutResult(status -> {
+                em.persist(new Member("chunk", 6500));
+                em.flush();
+                assertThrows(InvalidDataAccessApiUsageException.class, () -> memberRepository.bulkAgePlusChunked(
+                        "chunkInTransaction", 6500, 10, 2, BulkUpdateListener.NONE));
+                status.setRollbackOnly();
+            });
+            assertTrue( System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5) );
+            long inTransactionCheckpoints = tx.execute(status -> em.createQuery(
+                    "select count(c) from BulkUpdateCheckpoint c where c.jobName = 'chunkInTransaction'", Long.class)
+                    .getSingleResult());
+            assertEquals( inTransactionCheckpoints, 0 );
+        } finally {
+            tx.executeWithoutResult(status -> {
+                em.createQuery("delete from Member m where m.username = 'chunk'").executeUpdate();
+                em.createQuery("delete from BulkUpdateCheckpoint c").executeUpdate();
+            });
+        }
+
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void asyncQuery() throws Exception {
+
+        // given
+        // 컨트롤러 init 으로 커밋된 회원
+        String username = "User1";
+
+        // when
+        CompletableFuture<List<Member>> members = memberRepository.findAsyncByUsername(username);
+        List<Member> result = members.get(5, TimeUnit.SECONDS);
+        CompletableFuture<Page<Member>> page = memberRepository.findAsyncByAge(result.get(0).getAge(), PageRequest.of(0, 10));
+
+        // then
+        assertEquals( result.size(), 1 );
+        assertTrue( page.get(5, TimeUnit.SECONDS).getTotalElements() >= 1 );
+        assertTrue( page.get().getContent().stream().anyMatch(member -> member.getUsername().equals(username)) );
+        assertEquals( meterRegistry.get("executor.queued").tag("name", "repositoryExecutor").gauge().value(), 0.0 );
+
+    }
+
+    @Test
+    public void findByNamesChunked() {
+
+        // given
+        memberRepository.save(new Member("chunked1", 10));
+        memberRepository.save(new Member("chunked2", 20));
+        List<String> names = new ArrayList<>();
+        for ( int i = 0; i < 1300; ++i ) {
+            names.add("chunked" + i);
+        }
+        names.add("chunked1");
+        SqlStatementCounter.reset();
+
+        // when
+        List<Member> result = memberRepository.findByNamesChunked(names);
+
+        // then
+        // 512 개씩 3 번, 마지막 청크도 512 개로 채워져 SQL 문자열은 하나
+        List<String> recorded = SqlStatementCounter.current().getRecorded().stream()
+                .filter(sql -> sql.contains(" in("))
+                .toList();
+        assertEquals( result.size(), 2 );
+        assertEquals( recorded.size(), 3 );
+        assertEquals( Set.copyOf(recorded).size(), 1 );
+
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void findByNamesChunkedInParallel() {
+
+        // given
+        // 컨트롤러 init 으로 커밋된 User0 ~ User99 와 없는 이름 섞기
+        List<String> names = new ArrayList<>();
+        for ( int i = 0; i < 1500; ++i ) {
+            names.add("User" + i);
+        }
+        long submittedBefore = repositoryExecutor.getThreadPoolExecutor().getTaskCount();
+
+        // when
+        List<Member> result = memberRepository.findByNamesChunked(names);
+
+        // then
+        // 청크 3 개 중 2 개는 repositoryExecutor 에서
+        assertEquals( result.stream().map(Member::getUsername).distinct().count(), 100 );
+        assertTrue( result.stream().allMatch(member -> member.getUsername().startsWith("User")) );
+        assertEquals( repositoryExecutor.getThreadPoolExecutor().getTaskCount() - submittedBefore, 2 );
+
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void findByNamesChunkedRunsRejectedGroupsOnCaller() throws Exception {
+
+        // given
+        // 큐 없는 스레드 하나짜리 실행기를 막아 두면 묶음 제출이 모두 거절된다
+        ThreadPoolTaskExecutor saturated = new ThreadPoolTaskExecutor();
+        saturated.setCorePoolSize(1);
+        saturated.setMaxPoolSize(1);
+        saturated.setQueueCapacity(0);
+        saturated.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        saturated.execute(() -> await(release));
+        InListQuery inListQuery = new InListQuery(em.getEntityManagerFactory(), transactionManager, saturated, 512, 4);
+        List<String> names = new ArrayList<>();
+        for ( int i = 0; i < 1500; ++i ) {
+            names.add("User" + i);
+        }
+
+        try {
+            // when
+            List<Member> result = inListQuery.execute(names, chunk -> em.createQuery(
+                            "select m from Member m where m.username in :names", Member.class)
+                    .setParameter("names", chunk)
+                    .getResultList());
+
+            // then
+            assertEquals( result.stream().map(Member::getUsername).distinct().count(), 100 );
+            assertEquals( saturated.getThreadPoolExecutor().getTaskCount(), 1 );
+        } finally {
+            release.countDown();
+            saturated.shutdown();
+        }
+
+    }
+
+    @Test
+    public void generatedProjection() {
+
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member(10, "projected1", teamA));
+        em.persist(new Member("projected2", 20));
+        em.flush();
+        em.clear();
+
+        // when
+        Page<MemberProjection> page = memberRepository.findByNativeProjection(PageRequest.of(0, 1000));
+        GeneratedProjection<NestedClosedProjections> nested = GeneratedProjection.of(NestedClosedProjections.class);
+        NestedClosedProjections withTeam = nested.binder(List.of("username", "team.name")).bind(new Object[]{"m1", "teamA"});
+        NestedClosedProjections withoutTeam = nested.binder(List.of("USERNAME", "TEAM_NAME")).bind(new Object[]{"m2", null});
+
+        // then
+        List<MemberProjection> projected = page.getContent().stream()
+                .filter(projection -> projection.getUsername().startsWith("projected"))
+                .toList();
+        assertEquals( projected.size(), 2 );
+        assertEquals( projected.get(0).getTeamName(), "teamA" );
+        assertEquals( projected.get(1).getTeamName(), null );
+        assertTrue( projected.get(0).getId() < projected.get(1).getId() );
+        assertEquals( page.getTotalElements(), memberRepository.count() );
+        assertFalse( Proxy.isProxyClass(projected.get(0).getClass()) );
+
+        assertEquals( withTeam.getTeam().getName(), "teamA" );
+        assertEquals( withoutTeam.getUsername(), "m2" );
+        assertEquals( withoutTeam.getTeam(), null );
+        assertTrue( GeneratedProjection.of(NestedClosedProjections.class) == nested );
+        assertEquals( nested.getPaths(), List.of("team.name", "username") );
+
+    }
+
+    private static class ChunkFailure extends RuntimeException {
+    }
+
+}
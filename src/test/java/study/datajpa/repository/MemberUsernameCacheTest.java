@@ -0,0 +1,140 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.SqlStatementCounter;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 캐시는 읽기 전용 트랜잭션이나 트랜잭션 밖에서만 쓰이므로 커밋된 데이터로 확인한다
+@SpringBootTest
+class MemberUsernameCacheTest {
+
+    @PersistenceContext
+    EntityManager em;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberUsernameCache usernameCache;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.username like 'cached%'").executeUpdate());
+    }
+
+    @Test
+    public void readThroughAndInvalidateOnSave() {
+
+        // given
+        memberRepository.save(new Member("cached1", 10));
+        memberRepository.findByUsername("cached1");
+        long hitsBefore = usernameCache.getCache().stats().hitCount();
+
+        // when
+        SqlStatementCounter.reset();
+        Member cached = memberRepository.findMemberByUsername("cached1");
+        long selects = SqlStatementCounter.current().getSelects();
+        long hits = usernameCache.getCache().stats().hitCount() - hitsBefore;
+        memberRepository.save(new Member("cached1", 20));
+        List<Member> afterSave = memberRepository.findByUsername("cached1");
+        SqlStatementCounter.reset();
+        memberRepository.findByUsername("cached1");
+        long selectsForTwo = SqlStatementCounter.current().getSelects();
+
+        // then
+        // username -> id 캐시와 Member 2차 캐시로 SQL 없이 읽는다
+        assertEquals( selects, 0 );
+        assertEquals( cached.getAge(), 10 );
+        assertEquals( hits, 1 );
+        assertEquals( afterSave.size(), 2 );
+        assertEquals( selectsForTwo, 0 );
+
+    }
+
+    @Test
+    public void invalidateOnFlushAndDelete() {
+
+        // given
+        Member member = memberRepository.save(new Member("cached2", 10));
+        memberRepository.findByUsername("cached2");
+        memberRepository.findByUsername("cachedRenamed");
+
+        // when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.findById(member.getId()).get().setUsername("cachedRenamed"));
+        boolean oldNamePresent = memberRepository.findOptionalByUsername("cached2").isPresent();
+        Member renamed = memberRepository.findMemberByUsername("cachedRenamed");
+        memberRepository.delete(renamed);
+
+        // then
+        assertFalse( oldNamePresent );
+        assertEquals( renamed.getId(), member.getId() );
+        assertTrue( memberRepository.findByUsername("cachedRenamed").isEmpty() );
+
+    }
+
+    @Test
+    public void invalidateOnBulkUpdate() {
+
+        // given
+        memberRepository.save(new Member("cached3", 10));
+        memberRepository.findByUsername("cached3");
+
+        // when
+        memberRepository.bulkAgePlus(10);
+        long cachedKeys = usernameCache.getCache().estimatedSize();
+        Member member = memberRepository.findMemberByUsername("cached3");
+
+        // then
+        assertEquals( cachedKeys, 0 );
+        assertEquals( member.getAge(), 11 );
+
+    }
+
+    @Test
+    public void coalesceConcurrentMisses() throws Exception {
+
+        // given
+        memberRepository.save(new Member("cached4", 10));
+        long loadsBefore = usernameCache.getCache().stats().loadCount();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        List<Future<List<Member>>> results = new ArrayList<>();
+        for ( int i = 0; i < threads; ++i ) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return memberRepository.findByUsername("cached4");
+            }));
+        }
+        start.countDown();
+        for ( Future<List<Member>> result : results ) {
+            assertEquals( result.get(10, TimeUnit.SECONDS).size(), 1 );
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals( usernameCache.getCache().stats().loadCount() - loadsBefore, 1 );
+
+    }
+
+}
@@ -0,0 +1,201 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.SqlStatementCounter;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.TeamMemberSummary;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 요약은 커밋 직전에 반영되므로 커밋된 데이터로 확인한다
+@SpringBootTest
+class TeamMemberSummaryTest {
+
+    @PersistenceContext
+    EntityManager em;
+    @Autowired TeamJpaRepository teamJpaRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamMemberSummaryUpdater summaryUpdater;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'summary%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name like 'summary%'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void maintainOnInsertChangeTeamAndDelete() {
+
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("summaryA");
+            Team teamB = new Team("summaryB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member(10, "summary1", teamA);
+            Member member3 = new Member(30, "summary3", teamB);
+            em.persist(member1);
+            em.persist(new Member(20, "summary2", teamA));
+            em.persist(member3);
+            return new Long[] { teamA.getId(), teamB.getId(), member1.getId(), member3.getId() };
+        });
+        assertSummary( ids[0], 2, 30, 10, 20 );
+        assertSummary( ids[1], 1, 30, 30, 30 );
+
+        // when
+        tx.executeWithoutResult(status -> em.find(Member.class, ids[2]).changeTeam(em.find(Team.class, ids[1])));
+
+        // then
+        assertSummary( ids[0], 1, 20, 20, 20 );
+        assertSummary( ids[1], 2, 40, 10, 30 );
+
+        // when
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, ids[3])));
+
+        // then
+        assertSummary( ids[1], 1, 10, 10, 10 );
+
+    }
+
+    @Test
+    public void maintainAfterBulkAgePlus() {
+
+        // given
+        Long teamId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = new Team("summaryBulk");
+            em.persist(team);
+            em.persist(new Member(4990, "summaryBulk1", team));
+            em.persist(new Member(5000, "summaryBulk2", team));
+            em.persist(new Member(5010, "summaryBulk3", team));
+            return team.getId();
+        });
+        Long untouchedId = driftedTeam("summaryBulkUntouched");
+
+        // when
+        int updated = memberRepository.bulkAgePlus(5000);
+
+        // then
+        assertEquals( updated, 2 );
+        assertSummary( teamId, 3, 4990 + 5001 + 5011, 4990, 5011 );
+        // 대상 행의 팀만 증감으로 바꾸고 전체를 다시 집계하지 않는다
+        assertSummary( untouchedId, 99, 1, 1, 1 );
+
+    }
+
+    @Test
+    public void applyDeltasPerParallelChunk() {
+
+        // given
+        Long teamId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = new Team("summaryChunked");
+            em.persist(team);
+            for ( int i = 0; i < 6; ++i ) {
+                em.persist(new Member(7000 + i, "summaryChunked" + i, team));
+            }
+            return team.getId();
+        });
+        Long untouchedId = driftedTeam("summaryChunkedUntouched");
+        List<Long> ageSumsDuringRun = new CopyOnWriteArrayList<>();
+
+        // when
+        BulkUpdateResult result = memberRepository.bulkAgePlusChunked("summaryChunked", 7000, 2, 4,
+                (completedChunks, totalChunks, updatedRows) -> ageSumsDuringRun.add(jdbcTemplate.queryForObject(
+                        "select age_sum from team_member_summary where team_id = ?", Long.class, teamId)));
+
+        // then
+        // 청크가 커밋될 때마다 그 청크의 행만큼 반영된다
+        assertEquals( result.getUpdatedRows(), 6L );
+        assertTrue( ageSumsDuringRun.stream().allMatch(ageSum -> ageSum >= 7000 * 6 + 15 && ageSum <= 7000 * 6 + 15 + 6) );
+        assertSummary( teamId, 6, 7000 * 6 + 15 + 6, 7001, 7006 );
+        assertSummary( untouchedId, 99, 1, 1, 1 );
+
+    }
+
+    @Test
+    public void summariesAreReadWithoutAggregation() {
+
+        // given
+        Long teamId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = new Team("summaryRead");
+            em.persist(team);
+            em.persist(new Member(40, "summaryRead1", team));
+            return team.getId();
+        });
+
+        // when
+        SqlStatementCounter.reset();
+        List<TeamMemberSummary> summaries = teamJpaRepository.findMemberSummaries();
+        List<String> statements = SqlStatementCounter.current().getRecorded();
+
+        // then
+        assertEquals( statements.size(), 1 );
+        assertTrue( statements.get(0).contains("team_member_summary") );
+        assertFalse( statements.get(0).contains("group by") );
+        assertTrue( summaries.stream().anyMatch(summary -> summary.getTeamId().equals(teamId)) );
+
+    }
+
+    @Test
+    public void rebuildRepairsDrift() {
+
+        // given
+        Long teamId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = new Team("summaryDrift");
+            em.persist(team);
+            em.persist(new Member(50, "summaryDrift1", team));
+            em.persist(new Member(60, "summaryDrift2", team));
+            return team.getId();
+        });
+        // Hibernate 를 거치지 않는 쓰기로 어긋나게 만든다
+        jdbcTemplate.update("update team_member_summary set member_count = 99, min_age = 1 where team_id = ?", teamId);
+
+        // when
+        int drifted = summaryUpdater.rebuild();
+
+        // then
+        assertTrue( drifted >= 1 );
+        assertSummary( teamId, 2, 110, 50, 60 );
+        assertEquals( summaryUpdater.rebuild(), 0 );
+
+    }
+
+    // Hibernate 를 거치지 않는 쓰기로 요약을 어긋나게 만든 팀. 전체를 다시 집계하면 맞춰진다
+    private Long driftedTeam(String name) {
+        Long teamId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = new Team(name);
+            em.persist(team);
+            em.persist(new Member(1, name + "1", team));
+            return team.getId();
+        });
+        jdbcTemplate.update("update team_member_summary set member_count = 99 where team_id = ?", teamId);
+        return teamId;
+    }
+
+    private void assertSummary(Long teamId, long count, long ageSum, int minAge, int maxAge) {
+        TeamMemberSummary summary = teamJpaRepository.findMemberSummary(teamId).orElseThrow();
+        assertEquals( summary.getMemberCount(), count );
+        assertEquals( summary.getAgeSum(), ageSum );
+        assertEquals( summary.getMinAge(), minAge );
+        assertEquals( summary.getMaxAge(), maxAge );
+    }
+
+}
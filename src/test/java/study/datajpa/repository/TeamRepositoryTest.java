@@ -0,0 +1,158 @@
+package study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class TeamRepositoryTest {
+
+    @Autowired TeamRepository teamRepository;
+    @Autowired TeamJpaRepository teamJpaRepository;
+    @Autowired EntityManagerFactory emf;
+    @Autowired PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'evict%' or m.username like 'extraLazy%'"
+                    + " or m.username like 'count%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name in ('cachedTeam', 'evictTeam', 'extraLazyTeam', 'countTeam')")
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    public void secondLevelCache() {
+
+        // given
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Team team = teamRepository.save(new Team("cachedTeam"));
+        statistics.clear();
+
+        // when
+        teamRepository.findById(team.getId());
+        teamJpaRepository.findById(team.getId());
+        teamRepository.findByNames(List.of("cachedTeam"));
+        teamRepository.findByNames(List.of("cachedTeam"));
+
+        // then
+        assertEquals( statistics.getDomainDataRegionStatistics("team").getHitCount(), 2 );
+        assertEquals( statistics.getQueryCacheHitCount(), 1 );
+
+    }
+
+    @Test
+    public void changeTeamEvictsMembersCollection() {
+
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("evictTeam");
+            em.persist(team);
+            em.persist(new Member(10, "evict1", team));
+            return team.getId();
+        });
+        // Team.members 컬렉션 캐시 적재
+        assertEquals( memberCount(tx, teamId), 1 );
+
+        // when
+        tx.executeWithoutResult(status -> em.persist(new Member(20, "evict2", em.find(Team.class, teamId))));
+
+        // then
+        assertEquals( memberCount(tx, teamId), 2 );
+
+    }
+
+    @Test
+    public void extraLazyMembers() {
+
+        // given
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = tx.execute(status -> {
+            Team team = new Team("extraLazyTeam");
+            em.persist(team);
+            Member member = new Member(10, "extraLazy1", team);
+            em.persist(member);
+            em.persist(new Member(20, "extraLazy2", team));
+            return new Long[] { team.getId(), member.getId() };
+        });
+        long collectionLoads = statistics.getCollectionLoadCount();
+
+        // when
+        tx.executeWithoutResult(status -> {
+            Team team = em.find(Team.class, ids[0]);
+            List<Member> members = team.getMembers();
+            int before = members.size();
+            boolean contains = members.contains(em.find(Member.class, ids[1]));
+            em.persist(new Member(30, "extraLazy3", team));
+
+            // then
+            assertEquals( before, 2 );
+            assertEquals( contains, true );
+            assertEquals( members.size(), 3 );
+            assertEquals( Hibernate.isInitialized(members), false );
+        });
+        assertEquals( statistics.getCollectionLoadCount(), collectionLoads );
+
+    }
+
+    @Test
+    public void countAndAddMembersWithoutInitializing() {
+
+        // given
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("countTeam");
+            em.persist(team);
+            em.persist(new Member(10, "count1", team));
+            return team.getId();
+        });
+        long collectionLoads = statistics.getCollectionLoadCount();
+
+        // when
+        Member added = tx.execute(status -> teamJpaRepository.addMember(teamId, new Member("count2", 20)));
+        Boolean initialized = tx.execute(status -> {
+            Member member = teamJpaRepository.addMember(teamId, new Member("count3", 30));
+            return Hibernate.isInitialized(member.getTeam().getMembers());
+        });
+
+        // then
+        assertEquals( initialized, false );
+        assertEquals( teamJpaRepository.countMembers(teamId), 3L );
+        assertEquals( teamJpaRepository.containsMember(teamId, added.getId()), true );
+        assertEquals( teamJpaRepository.containsMember(teamId, -1L), false );
+        assertEquals( statistics.getCollectionLoadCount(), collectionLoads );
+
+    }
+
+    // 컬렉션을 실제로 초기화해 Team.members 컬렉션 캐시를 거치게 한다 (size() 는 count 쿼리로 끝난다)
+    private int memberCount(TransactionTemplate tx, Long teamId) {
+        Integer size = tx.execute(status -> {
+            List<Member> members = em.find(Team.class, teamId).getMembers();
+            Hibernate.initialize(members);
+            return members.size();
+        });
+        return size;
+    }
+
+}
@@ -0,0 +1,84 @@
+package study.datajpa.support;
+
+import study.datajpa.config.SqlStatementCounter;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 실행된 select 문을 H2 EXPLAIN 으로 확인한다. 파라미터는 null 로 바인딩해 계획만 본다.
+ * H2 는 테이블마다 접근 경로를 주석으로 남긴다. 조건 없이 이름만 있으면 전체 스캔이다.
+ * 예) PUBLIC.MEMBER.tableScan, PUBLIC.IDX_MEMBER_USERNAME (인덱스 전체 스캔), PUBLIC.IDX_MEMBER_USERNAME: USERNAME = ?1 (탐색)
+ */
+public class ExplainPlan {
+
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* [\\w\"]+\\.[\\w\".]+ \\*/");
+
+    private final DataSource dataSource;
+
+    public ExplainPlan(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // action 이 실행한 select 문(시퀀스 조회 제외)
+    public List<String> capture(Runnable action) {
+        SqlStatementCounter.reset();
+        action.run();
+        List<String> selects = new ArrayList<>();
+        for ( String sql : SqlStatementCounter.current().getRecorded() ) {
+            String trimmed = sql.stripLeading();
+            if ( trimmed.regionMatches(true, 0, "select", 0, 6)
+                    && !trimmed.regionMatches(true, 0, "select next value for", 0, 21) ) {
+                selects.add(sql);
+            }
+        }
+        SqlStatementCounter.reset();
+        return selects;
+    }
+
+    public String explain(String sql) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+            int parameterCount = statement.getParameterMetaData().getParameterCount();
+            for ( int i = 1; i <= parameterCount; ++i ) {
+                statement.setObject(i, null);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery()) {
+                while ( rs.next() ) {
+                    plan.append(rs.getString(1));
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            throw new IllegalStateException("cannot explain " + sql, e);
+        }
+    }
+
+    public static boolean isFullScan(String plan) {
+        return FULL_SCAN.matcher(plan).find();
+    }
+
+    // action 이 실행한 select 가 하나 이상이고 모두 인덱스(또는 PK) 탐색이어야 한다
+    public void assertNoTableScan(String name, Runnable action) {
+        List<String> selects = capture(action);
+        if ( selects.isEmpty() ) {
+            fail(name + " executed no select statement");
+        }
+        for ( String sql : selects ) {
+            String plan = explain(sql);
+            if ( isFullScan(plan) ) {
+                fail(name + " falls back to a full table scan:\n" + plan);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface SqlStatementBudget {
+
+    // 시퀀스 조회를 제외한 select 수 (N + 1 감지용)
+    int selects() default Integer.MAX_VALUE;
+
+    int statements() default Integer.MAX_VALUE;
+
+}
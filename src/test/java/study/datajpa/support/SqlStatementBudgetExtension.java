@@ -0,0 +1,38 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import study.datajpa.config.SqlStatementCounter;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        SqlStatementCounter.reset();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatementBudget budget = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestMethod(), SqlStatementBudget.class);
+        if ( budget == null ) {
+            return;
+        }
+        SqlStatementCounter.Counts counts = SqlStatementCounter.current();
+        if ( counts.getSelects() > budget.selects() ) {
+            fail(message("select", budget.selects(), counts.getSelects(), counts));
+        }
+        if ( counts.getStatements() > budget.statements() ) {
+            fail(message("SQL", budget.statements(), counts.getStatements(), counts));
+        }
+    }
+
+    private static String message(String kind, int budget, long actual, SqlStatementCounter.Counts counts) {
+        return "Expected at most " + budget + " " + kind + " statements but executed " + actual
+                + System.lineSeparator() + String.join(System.lineSeparator(), counts.getRecorded());
+    }
+
+}